@@ -1,11 +1,14 @@
 package org.school.analysis;
 
+import org.school.analysis.service.FolderWatchService;
 import org.school.analysis.service.GeneralService;
 import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import java.util.Arrays;
+
 import static org.school.analysis.config.AppConfig.*;
 
 @SpringBootApplication
@@ -15,6 +18,7 @@ public class Main {
                 .web(WebApplicationType.NONE)
                 .run(args);
         GeneralService processor = context.getBean(GeneralService.class);
+        boolean watchMode = WATCH_MODE_ENABLED || Arrays.asList(args).contains("--watch");
 
         System.out.println("=".repeat(80));
         System.out.println("🚀 ЗАПУСК СИСТЕМЫ ОБРАБОТКИ ОТЧЁТОВ ВСОКО");
@@ -25,12 +29,18 @@ public class Main {
         System.out.println("  📂 Папка для итогов: " + FINAL_REPORT_FOLDER);
         System.out.println("  🏫 Школы для обработки: " + String.join(", ", SCHOOLS));
         System.out.println("  📅 Текущий учебный год: " + ALL_ACADEMIC_YEAR.get(0));
+        System.out.println("  👀 Режим наблюдения за папками: " + (watchMode ? "включен" : "выключен"));
         System.out.println("=".repeat(80));
         System.out.println();
 
         int exitCode = 0;
         try {
             processor.processAll();
+
+            if (watchMode) {
+                // Дальше обрабатываем только новые файлы, пока процесс не остановят
+                context.getBean(FolderWatchService.class).watch();
+            }
         } catch (Exception e) {
             exitCode = 1;
             System.err.println("❌ Критическая ошибка: " + e.getMessage());
@@ -0,0 +1,507 @@
+package org.school.analysis.analytics;
+
+import org.school.analysis.model.ScoreVector;
+import org.school.analysis.model.dto.StudentDetailedResultDto;
+import org.school.analysis.model.dto.TaskStatisticsDto;
+import org.school.analysis.model.dto.TeacherTestDetailDto;
+import org.school.analysis.model.dto.TestSummaryDto;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Все результаты школы за учебный год в памяти, по колонкам в примитивных массивах.
+ * Загружается один раз на генерацию отчетов. Сводки и статистика заданий не пересчитываются
+ * по ученикам, а берутся из статистики, рассчитанной при сохранении файла (report_file_stats, task_stats).
+ * <p>
+ * Тесты хранятся в порядке сводки (дата теста по убыванию, предмет, класс), ученики
+ * сгруппированы по тестам: строки теста t - [rowStart[t], rowStart[t + 1]).
+ * Строковые атрибуты кодируются номерами в словарях (-1 - значение отсутствует).
+ * Баллы учеников хранятся упакованными ScoreVector с шириной по максимальным баллам теста
+ * и отдаются в отчеты без перепаковки.
+ */
+public final class AnalyticsCube {
+
+    private final String schoolName;
+    private final String academicYear;
+
+    // ===== Словари =====
+    private final String[] subjects;
+    private final String[] classNames;
+    private final String[] teachers;
+    private final String[] testTypes;
+    private final String[] dictionary;   // прочие строки: присутствие, вариант, учебный год, школа
+
+    // ===== Колонки тестов =====
+    private final UUID[] testIds;
+    private final int[] testSubject;
+    private final int[] testClass;
+    private final int[] testTeacher;
+    private final int[] testType;
+    private final LocalDate[] testDates;
+    private final String[] fileNames;
+    private final int[] classSizes;
+    private final Integer[] taskCounts;
+    private final ScoreVector[] maxScores;
+    private final String[] testAcademicYears;
+    private final Map<UUID, Integer> testIndex;
+
+    // ===== Колонки учеников =====
+    private final int[] rowStart;
+    private final String[] fio;
+    private final int[] presenceText;
+    private final int[] variant;
+    private final int[] totalScores;
+    private final double[] percentageScores;   // NaN - процент не рассчитан
+    private final int[] rowAcademicYear;
+    private final int[] rowSchoolName;
+    private final ScoreVector[] taskScores;
+
+    // ===== Статистика тестов, рассчитанная при сохранении (по присутствовавшим) =====
+    private final int[] presentCounts;
+    private final int[] absentCounts;
+    private final double[] averageScores;     // NaN - нет присутствовавших
+    private final int[] maxTotalScores;       // -1 - берется сумма максимальных баллов
+    private final List<Map<Integer, TaskStatisticsDto>> taskStatistics;   // [тест] -> зафиксированная статистика заданий
+    private final List<TestSummaryDto> summaries;
+
+    private AnalyticsCube(Builder builder) {
+        this.schoolName = builder.schoolName;
+        this.academicYear = builder.academicYear;
+
+        this.subjects = builder.subjects.values();
+        this.classNames = builder.classNames.values();
+        this.teachers = builder.teachers.values();
+        this.testTypes = builder.testTypes.values();
+        this.dictionary = builder.dictionary.values();
+
+        int testCount = builder.testIds.size();
+        this.testIds = builder.testIds.toArray(new UUID[0]);
+        this.testSubject = builder.testSubject.toArray();
+        this.testClass = builder.testClass.toArray();
+        this.testTeacher = builder.testTeacher.toArray();
+        this.testType = builder.testType.toArray();
+        this.testDates = builder.testDates.toArray(new LocalDate[0]);
+        this.fileNames = builder.fileNames.toArray(new String[0]);
+        this.classSizes = builder.classSizes.toArray();
+        this.taskCounts = builder.taskCounts.toArray(new Integer[0]);
+        this.maxScores = builder.maxScores.toArray(new ScoreVector[0]);
+        this.testAcademicYears = builder.testAcademicYears.toArray(new String[0]);
+        this.testIndex = builder.testIndex;
+        this.presentCounts = builder.presentCounts.toArray();
+        this.absentCounts = builder.absentCounts.toArray();
+        this.averageScores = builder.averageScores.toArray();
+        this.maxTotalScores = builder.maxTotalScores.toArray();
+        List<Map<Integer, TaskStatisticsDto>> testTaskStatistics = new ArrayList<>(testCount);
+        for (Map<Integer, TaskStatisticsDto> statistics : builder.taskStatistics) {
+            testTaskStatistics.add(Collections.unmodifiableMap(statistics));
+        }
+        this.taskStatistics = testTaskStatistics;
+
+        // Группировка учеников по тестам подсчетом (устойчивая: внутри теста сохраняется порядок загрузки)
+        int rowCount = builder.rowTest.size();
+        int[] rowTest = builder.rowTest.toArray();
+        this.rowStart = new int[testCount + 1];
+        for (int row = 0; row < rowCount; row++) {
+            rowStart[rowTest[row] + 1]++;
+        }
+        for (int test = 0; test < testCount; test++) {
+            rowStart[test + 1] += rowStart[test];
+        }
+        int[] order = new int[rowCount];
+        int[] next = Arrays.copyOf(rowStart, testCount);
+        for (int row = 0; row < rowCount; row++) {
+            order[next[rowTest[row]]++] = row;
+        }
+
+        this.fio = new String[rowCount];
+        this.presenceText = new int[rowCount];
+        this.variant = new int[rowCount];
+        this.totalScores = new int[rowCount];
+        this.percentageScores = new double[rowCount];
+        this.rowAcademicYear = new int[rowCount];
+        this.rowSchoolName = new int[rowCount];
+        this.taskScores = new ScoreVector[rowCount];
+
+        for (int row = 0; row < rowCount; row++) {
+            int source = order[row];
+            fio[row] = builder.fio.get(source);
+            presenceText[row] = builder.presenceText.get(source);
+            variant[row] = builder.variant.get(source);
+            totalScores[row] = builder.totalScores.get(source);
+            percentageScores[row] = builder.percentageScores.get(source);
+            rowAcademicYear[row] = builder.rowAcademicYear.get(source);
+            rowSchoolName[row] = builder.rowSchoolName.get(source);
+            taskScores[row] = builder.taskScores.get(source);
+        }
+
+        List<TestSummaryDto> testSummaries = new ArrayList<>(testCount);
+        for (int test = 0; test < testCount; test++) {
+            testSummaries.add(toTestSummary(test));
+        }
+        this.summaries = Collections.unmodifiableList(testSummaries);
+    }
+
+    public static Builder builder(String schoolName, String academicYear) {
+        return new Builder(schoolName, academicYear);
+    }
+
+    public String getSchoolName() {
+        return schoolName;
+    }
+
+    public String getAcademicYear() {
+        return academicYear;
+    }
+
+    public int getTestCount() {
+        return testIds.length;
+    }
+
+    public int getStudentRowCount() {
+        return fio.length;
+    }
+
+    /**
+     * Сводка по всем тестам (дата по убыванию, предмет, класс)
+     */
+    public List<TestSummaryDto> getTestSummaries() {
+        return summaries;
+    }
+
+    /**
+     * Тесты учителя в порядке сводки
+     */
+    public List<TestSummaryDto> getTestsByTeacher(String teacher) {
+        List<TestSummaryDto> result = new ArrayList<>();
+        for (int test = 0; test < testIds.length; test++) {
+            if (testTeacher[test] >= 0 && teachers[testTeacher[test]].equals(teacher)) {
+                result.add(summaries.get(test));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Учителя, у которых есть тесты, по алфавиту
+     */
+    public List<String> getTeachers() {
+        boolean[] used = new boolean[teachers.length];
+        for (int teacher : testTeacher) {
+            if (teacher >= 0) {
+                used[teacher] = true;
+            }
+        }
+        List<String> result = new ArrayList<>();
+        for (int teacher = 0; teacher < teachers.length; teacher++) {
+            if (used[teacher]) {
+                result.add(teachers[teacher]);
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Статистика по заданиям теста (по присутствовавшим, только чтение); пусто для неизвестного теста
+     */
+    public Map<Integer, TaskStatisticsDto> getTaskStatistics(String reportFileId) {
+        int test = indexOf(reportFileId);
+        return test >= 0 ? taskStatistics.get(test) : Map.of();
+    }
+
+    /**
+     * Результаты учеников теста в порядке загрузки
+     */
+    public List<StudentDetailedResultDto> getStudentResults(String reportFileId) {
+        int test = indexOf(reportFileId);
+        if (test < 0) {
+            return List.of();
+        }
+        List<StudentDetailedResultDto> results = new ArrayList<>(rowStart[test + 1] - rowStart[test]);
+        for (int row = rowStart[test]; row < rowStart[test + 1]; row++) {
+            results.add(StudentDetailedResultDto.builder()
+                    .fio(fio[row])
+                    .presence(decode(presenceText[row]))
+                    .variant(decode(variant[row]))
+                    .totalScore(totalScores[row])
+                    .percentageScore(Double.isNaN(percentageScores[row]) ? null : percentageScores[row])
+                    .taskScores(taskScores[row])
+                    .academicYear(decode(rowAcademicYear[row]))
+                    .schoolName(decode(rowSchoolName[row]))
+                    .build());
+        }
+        return results;
+    }
+
+    /**
+     * Детальные данные тестов (тесты без ID или не из этой выборки пропускаются)
+     */
+    public List<TeacherTestDetailDto> getDetailBundles(List<TestSummaryDto> tests) {
+        List<TeacherTestDetailDto> bundles = new ArrayList<>(tests.size());
+        for (TestSummaryDto test : tests) {
+            if (indexOf(test.getReportFileId()) < 0) {
+                continue;
+            }
+            bundles.add(TeacherTestDetailDto.builder()
+                    .testSummary(test)
+                    .studentResults(getStudentResults(test.getReportFileId()))
+                    .taskStatistics(getTaskStatistics(test.getReportFileId()))
+                    .build());
+        }
+        return bundles;
+    }
+
+    private int indexOf(String reportFileId) {
+        if (reportFileId == null || reportFileId.isBlank()) {
+            return -1;
+        }
+        Integer test = testIndex.get(UUID.fromString(reportFileId));
+        return test != null ? test : -1;
+    }
+
+    private String decode(int id) {
+        return id >= 0 ? dictionary[id] : null;
+    }
+
+    /**
+     * Сводка теста: средний балл по присутствовавшим округляется до сотых (0 - никто не писал)
+     */
+    private TestSummaryDto toTestSummary(int test) {
+        int maxTotalScore = maxTotalScores[test] >= 0 ? maxTotalScores[test] : maxScores[test].getTotal();
+        double averageScore = !Double.isNaN(averageScores[test])
+                ? Math.round(averageScores[test] * 100.0) / 100.0
+                : 0.0;
+
+        return TestSummaryDto.builder()
+                .reportFileId(testIds[test].toString())
+                .schoolName(schoolName)
+                .subject(testSubject[test] >= 0 ? subjects[testSubject[test]] : null)
+                .className(testClass[test] >= 0 ? classNames[testClass[test]] : null)
+                .testDate(testDates[test])
+                .testType(testType[test] >= 0 ? testTypes[testType[test]] : null)
+                .teacher(testTeacher[test] >= 0 ? teachers[testTeacher[test]] : null)
+                .studentsCount(presentCounts[test])
+                .classSize(classSizes[test])
+                .taskCount(taskCounts[test])
+                .maxTotalScore(maxTotalScore)
+                .averageScore(averageScore)
+                .fileName(fileNames[test])
+                .studentsTotal(classSizes[test])
+                .studentsPresent(presentCounts[test])
+                .studentsAbsent(absentCounts[test])
+                .academicYear(testAcademicYears[test])
+                .build();
+    }
+
+    /**
+     * Заполнение куба: сначала все тесты (в порядке сводки), затем их статистика и ученики в любом порядке
+     */
+    public static final class Builder {
+        private final String schoolName;
+        private final String academicYear;
+
+        private final Dictionary subjects = new Dictionary();
+        private final Dictionary classNames = new Dictionary();
+        private final Dictionary teachers = new Dictionary();
+        private final Dictionary testTypes = new Dictionary();
+        private final Dictionary dictionary = new Dictionary();
+
+        private final List<UUID> testIds = new ArrayList<>();
+        private final IntColumn testSubject = new IntColumn();
+        private final IntColumn testClass = new IntColumn();
+        private final IntColumn testTeacher = new IntColumn();
+        private final IntColumn testType = new IntColumn();
+        private final List<LocalDate> testDates = new ArrayList<>();
+        private final List<String> fileNames = new ArrayList<>();
+        private final IntColumn classSizes = new IntColumn();
+        private final List<Integer> taskCounts = new ArrayList<>();
+        private final List<ScoreVector> maxScores = new ArrayList<>();
+        private final List<String> testAcademicYears = new ArrayList<>();
+        private final Map<UUID, Integer> testIndex = new HashMap<>();
+        private final IntColumn presentCounts = new IntColumn();
+        private final IntColumn absentCounts = new IntColumn();
+        private final DoubleColumn averageScores = new DoubleColumn();
+        private final IntColumn maxTotalScores = new IntColumn();
+        private final List<Map<Integer, TaskStatisticsDto>> taskStatistics = new ArrayList<>();
+
+        private final IntColumn rowTest = new IntColumn();
+        private final List<String> fio = new ArrayList<>();
+        private final IntColumn presenceText = new IntColumn();
+        private final IntColumn variant = new IntColumn();
+        private final IntColumn totalScores = new IntColumn();
+        private final DoubleColumn percentageScores = new DoubleColumn();
+        private final IntColumn rowAcademicYear = new IntColumn();
+        private final IntColumn rowSchoolName = new IntColumn();
+        private final List<ScoreVector> taskScores = new ArrayList<>();
+
+        private Builder(String schoolName, String academicYear) {
+            this.schoolName = schoolName;
+            this.academicYear = academicYear;
+        }
+
+        public Builder addTest(UUID reportFileId, String subject, String className, String teacher,
+                               String type, LocalDate testDate, String fileName, Integer classSize,
+                               Integer taskCount, ScoreVector testMaxScores, String testAcademicYear) {
+            if (reportFileId == null || testIndex.containsKey(reportFileId)) {
+                return this;
+            }
+            testIndex.put(reportFileId, testIds.size());
+            testIds.add(reportFileId);
+            testSubject.add(subjects.encode(subject));
+            testClass.add(classNames.encode(className));
+            testTeacher.add(teachers.encode(teacher));
+            testType.add(testTypes.encode(type));
+            testDates.add(testDate);
+            fileNames.add(fileName);
+            classSizes.add(classSize != null ? classSize : 0);
+            taskCounts.add(taskCount);
+            maxScores.add(testMaxScores != null ? testMaxScores : ScoreVector.EMPTY);
+            testAcademicYears.add(testAcademicYear);
+            presentCounts.add(0);
+            absentCounts.add(0);
+            averageScores.add(Double.NaN);
+            maxTotalScores.add(-1);
+            taskStatistics.add(new TreeMap<>());
+            return this;
+        }
+
+        /**
+         * Статистика теста из report_file_stats; null - значение не рассчитано
+         */
+        public Builder setTestStats(UUID reportFileId, Integer presentCount, Integer absentCount,
+                                    Double averageScore, Integer maxTotalScore) {
+            Integer test = testIndex.get(reportFileId);
+            if (test == null) {
+                return this;
+            }
+            presentCounts.set(test, presentCount != null ? presentCount : 0);
+            absentCounts.set(test, absentCount != null ? absentCount : 0);
+            averageScores.set(test, averageScore != null ? averageScore : Double.NaN);
+            maxTotalScores.set(test, maxTotalScore != null ? maxTotalScore : -1);
+            return this;
+        }
+
+        /**
+         * Статистика задания из task_stats (гистограмма: балл -> учеников); задания чужих тестов пропускаются
+         */
+        public Builder addTaskStatistics(UUID reportFileId, int taskNumber, int maxScore, int[] histogram) {
+            Integer test = testIndex.get(reportFileId);
+            if (test == null) {
+                return this;
+            }
+            TaskStatisticsDto stats = TaskStatisticsDto.builder()
+                    .taskNumber(taskNumber)
+                    .maxScore(maxScore)
+                    .build();
+            if (histogram != null) {
+                stats.addHistogram(histogram);
+            }
+            taskStatistics.get(test).put(taskNumber, stats.freeze());
+            return this;
+        }
+
+        /**
+         * Строка ученика; ученики тестов, не добавленных через addTest, пропускаются.
+         * Баллы перепаковываются один раз по ширине максимальных баллов теста.
+         */
+        public Builder addStudent(UUID reportFileId, String studentFio, String studentPresence,
+                                  String studentVariant, Integer totalScore, Double percentageScore,
+                                  ScoreVector taskScores, String studentAcademicYear, String studentSchoolName) {
+            Integer test = testIndex.get(reportFileId);
+            if (test == null) {
+                return this;
+            }
+            ScoreVector vector = taskScores != null ? taskScores.withWidthOf(maxScores.get(test)) : ScoreVector.EMPTY;
+
+            rowTest.add(test);
+            fio.add(studentFio);
+            presenceText.add(dictionary.encode(studentPresence));
+            variant.add(dictionary.encode(studentVariant));
+            totalScores.add(totalScore != null ? totalScore : vector.getTotal());
+            percentageScores.add(percentageScore != null ? percentageScore : Double.NaN);
+            rowAcademicYear.add(dictionary.encode(studentAcademicYear));
+            rowSchoolName.add(dictionary.encode(studentSchoolName));
+            this.taskScores.add(vector);
+            return this;
+        }
+
+        public AnalyticsCube build() {
+            return new AnalyticsCube(this);
+        }
+    }
+
+    /**
+     * Словарь строк: значение -> номер; null кодируется как -1
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return ids.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        String[] values() {
+            return values.toArray(new String[0]);
+        }
+    }
+
+    private static final class IntColumn {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class DoubleColumn {
+        private double[] values = new double[64];
+        private int size;
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        double get(int index) {
+            return values[index];
+        }
+
+        void set(int index, double value) {
+            values[index] = value;
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.school.analysis.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Накопительная статистика выборки: число значений, среднее и сумма квадратов отклонений (M2)
+ * по алгоритму Уэлфорда, минимум/максимум и гистограмма (элемент i - число значений в корзине i).
+ * Две статистики объединяются через merge без исходных значений, поэтому статистику
+ * нового файла можно посчитать отдельно и добавить к сохраненной.
+ */
+public final class RunningStats {
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private int[] histogram;
+
+    public RunningStats() {
+        this.histogram = new int[0];
+    }
+
+    private RunningStats(long count, double mean, double m2, double min, double max, int[] histogram) {
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+        this.min = min;
+        this.max = max;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Восстановить статистику из сохраненных значений (гистограмма копируется)
+     */
+    public static RunningStats of(long count, double mean, double m2, Double min, Double max, int[] histogram) {
+        return new RunningStats(count, mean, m2,
+                min != null ? min : Double.NaN,
+                max != null ? max : Double.NaN,
+                histogram != null ? histogram.clone() : new int[0]);
+    }
+
+    /**
+     * Добавить значение (шаг Уэлфорда) и учесть его в корзине bucket гистограммы
+     */
+    public void add(double value, int bucket) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Double.isNaN(min) ? value : Math.min(min, value);
+        max = Double.isNaN(max) ? value : Math.max(max, value);
+
+        int index = Math.max(0, bucket);
+        if (index >= histogram.length) {
+            histogram = Arrays.copyOf(histogram, index + 1);
+        }
+        histogram[index]++;
+    }
+
+    /**
+     * Добавить статистику другой выборки (параллельная формула Чана для среднего и M2)
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+        } else {
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+            count = total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        if (other.histogram.length > histogram.length) {
+            histogram = Arrays.copyOf(histogram, other.histogram.length);
+        }
+        for (int i = 0; i < other.histogram.length; i++) {
+            histogram[i] += other.histogram[i];
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getM2() {
+        return m2;
+    }
+
+    /**
+     * Выборочная дисперсия (n - 1); 0 для одного значения
+     */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0.0;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    // null - значений еще нет
+    public Double getMin() {
+        return Double.isNaN(min) ? null : min;
+    }
+
+    public Double getMax() {
+        return Double.isNaN(max) ? null : max;
+    }
+
+    /**
+     * Копия гистограммы
+     */
+    public int[] getHistogram() {
+        return histogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "RunningStats(count=" + count + ", mean=" + mean + ", sd=" + getStandardDeviation()
+                + ", min=" + getMin() + ", max=" + getMax() + ", histogram=" + Arrays.toString(histogram) + ")";
+    }
+}
@@ -54,4 +54,77 @@ public class AppConfig {
 
     // Добавьте это для контроля размера пакета
     public static final int BATCH_SIZE = 100;
+
+    // Файлы от этого размера парсятся потоково (SAX), без построения DOM всей книги
+    public static final long STREAMING_PARSE_THRESHOLD_BYTES = 1024 * 1024; // 1 МБ
+    // Сколько различных шаблонов заголовков хранить в кэше структуры колонок
+    public static final int COLUMN_STRUCTURE_CACHE_SIZE = 256;
+
+    // ========== ПАРАЛЛЕЛЬНЫЙ ПАРСИНГ ==========
+    // Включить параллельный парсинг файлов партии (false - последовательно, как раньше)
+    public static final boolean PARALLEL_PARSING_ENABLED = true;
+    // Сколько файлов одновременно занимают CPU (разбор XML/распаковка)
+    public static final int PARSE_CPU_PERMITS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    // Лимит времени на парсинг одного файла
+    public static final int PARSE_FILE_TIMEOUT_SECONDS = 120;
+    // Бюджет памяти на одновременно парсящиеся файлы
+    public static final long PARSE_MEMORY_BUDGET_BYTES = Runtime.getRuntime().maxMemory() / 2;
+    // Оценка памяти: DOM-модель книги занимает примерно в N раз больше размера xlsx
+    public static final int DOM_PARSE_MEMORY_FACTOR = 20;
+    // Оценка памяти для потокового парсинга (не зависит от размера файла)
+    public static final long STREAMING_PARSE_MEMORY_BYTES = 32L * 1024 * 1024; // 32 МБ
+
+    // ========== КОНВЕЙЕР ЗАГРУЗКИ ==========
+    // Парсинг, проверка, сохранение и перемещение идут одновременно для разных файлов
+    // (false - партия целиком проходит фазы по очереди, как раньше)
+    public static final boolean PIPELINE_ENABLED = true;
+    // Емкость очереди перед каждой стадией (сколько готовых файлов может ждать следующую стадию)
+    public static final int PIPELINE_QUEUE_CAPACITY = 8;
+    // Число обработчиков на стадиях
+    public static final int PIPELINE_PARSE_WORKERS = PARSE_CPU_PERMITS;
+    public static final int PIPELINE_VALIDATE_WORKERS = 1;
+    public static final int PIPELINE_SAVE_WORKERS = 2;
+    public static final int PIPELINE_MOVE_WORKERS = 1;
+    // Как часто логировать глубину очередей и пропускную способность стадий
+    public static final int PIPELINE_METRICS_LOG_INTERVAL_SECONDS = 10;
+
+    // ========== ХЕШИРОВАНИЕ ФАЙЛОВ ==========
+    // Потоки ввода-вывода для вычисления хешей (работают параллельно с парсингом)
+    public static final int HASH_IO_THREADS = 2;
+    // Размер буфера чтения при хешировании
+    public static final int HASH_BUFFER_SIZE_BYTES = 64 * 1024; // 64 КБ
+
+    // ========== РЕЖИМ НАБЛЮДЕНИЯ ЗА ПАПКОЙ ==========
+    // После полной обработки продолжать следить за папками "На разбор" (также включается аргументом --watch)
+    public static final boolean WATCH_MODE_ENABLED = false;
+    // Файл считается дописанным, если его размер и время изменения не менялись столько времени
+    public static final long WATCH_DEBOUNCE_MILLIS = 5000;
+    // Период полного пересканирования папок (страховка для синхронизируемых папок, например Яндекс.Диска,
+    // где события файловой системы приходят не всегда)
+    public static final int WATCH_POLL_INTERVAL_SECONDS = 30;
+    // Период проверки событий и готовности файлов
+    public static final long WATCH_TICK_MILLIS = 1000;
+
+    // ========== ЗАПИСЬ В БД ==========
+    // Пакетная вставка результатов учеников (false - пакеты JDBC отключены, по одному INSERT на ученика)
+    public static final boolean JDBC_BATCH_INSERT_ENABLED = true;
+    // Сколько INSERT отправляется в БД одним пакетом JDBC
+    public static final int JDBC_BATCH_SIZE = 100;
+    // Массовая загрузка архивов: результаты учеников пишутся через COPY FROM STDIN вместо JPA
+    public static final boolean BULK_COPY_SAVE_ENABLED = false;
+    // Буфер потока COPY
+    public static final int COPY_BUFFER_SIZE_BYTES = 64 * 1024; // 64 КБ
+    // Сколько строк переносится из JSON в колонки smallint[] за один UPDATE при старте
+    public static final int SCORE_ARRAY_MIGRATION_BATCH_SIZE = 5000;
+    // Пакет файлов при расчете статистики для ранее сохраненных файлов (очистка контекста;
+    // для stats_aggregates - отдельная транзакция на пакет)
+    public static final int REPORT_STATS_BACKFILL_BATCH_SIZE = 100;
+    // Сколько строк драйвер PostgreSQL получает за одно обращение в запросах для отчетов
+    public static final int REPORT_QUERY_FETCH_SIZE = 500;
+    // Секционирование student_results по academic_year (секции для ALL_ACADEMIC_YEAR создаются при старте)
+    public static final boolean STUDENT_RESULTS_PARTITIONING_ENABLED = true;
+    // Накопительная статистика по предметам, классам, учителям и заданиям (stats_aggregates) при сохранении файлов
+    public static final boolean STATS_AGGREGATES_ENABLED = true;
+    // Ширина корзины гистограммы процента выполнения в stats_aggregates (в процентах)
+    public static final int STATS_PERCENT_BUCKET_WIDTH = 10;
 }
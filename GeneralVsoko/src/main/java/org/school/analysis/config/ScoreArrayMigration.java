@@ -0,0 +1,72 @@
+package org.school.analysis.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import static org.school.analysis.config.AppConfig.SCORE_ARRAY_MIGRATION_BATCH_SIZE;
+
+/**
+ * Перенос баллов из TEXT JSON в колонки smallint[] (task_scores, max_scores) для строк,
+ * сохраненных до их появления. Колонки создает Hibernate (ddl-auto: update), здесь они только заполняются.
+ * Выполняется при старте порциями; уже перенесенные строки не трогаются, поэтому повторный запуск безопасен.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScoreArrayMigration {
+
+    // {"1":2,"3":1} -> {2,0,1}: номер задания = индекс массива, пропущенные задания - 0
+    private static final String MIGRATE_TASK_SCORES_SQL = """
+            UPDATE student_results s
+            SET task_scores = ARRAY(
+                    SELECT COALESCE((j.scores ->> g::text)::smallint, 0)
+                    FROM generate_series(1, (SELECT max(k::int) FROM jsonb_object_keys(j.scores) k)) g
+                    ORDER BY g)
+            FROM (SELECT id, task_scores_json::jsonb AS scores
+                  FROM student_results
+                  WHERE task_scores IS NULL AND task_scores_json IS NOT NULL AND task_scores_json <> ''
+                  LIMIT ?) j
+            WHERE s.id = j.id""";
+
+    private static final String MIGRATE_MAX_SCORES_SQL = """
+            UPDATE report_files r
+            SET max_scores = ARRAY(
+                    SELECT COALESCE((j.scores ->> g::text)::smallint, 0)
+                    FROM generate_series(1, (SELECT max(k::int) FROM jsonb_object_keys(j.scores) k)) g
+                    ORDER BY g)
+            FROM (SELECT id, max_scores_json::jsonb AS scores
+                  FROM report_files
+                  WHERE max_scores IS NULL AND max_scores_json IS NOT NULL AND max_scores_json <> ''
+                  LIMIT ?) j
+            WHERE r.id = j.id""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        try {
+            int reportFiles = migrateInBatches(MIGRATE_MAX_SCORES_SQL);
+            int studentResults = migrateInBatches(MIGRATE_TASK_SCORES_SQL);
+            if (reportFiles > 0 || studentResults > 0) {
+                log.info("🔁 Баллы перенесены в колонки smallint[]: файлов {}, результатов учеников {}",
+                        reportFiles, studentResults);
+            }
+        } catch (Exception e) {
+            log.error("❌ Ошибка переноса баллов в колонки smallint[]: {}", e.getMessage(), e);
+        }
+    }
+
+    private int migrateInBatches(String sql) {
+        int total = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update(sql, SCORE_ARRAY_MIGRATION_BATCH_SIZE);
+            total += updated;
+        } while (updated > 0);
+        return total;
+    }
+}
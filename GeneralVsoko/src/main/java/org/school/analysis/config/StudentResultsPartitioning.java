@@ -0,0 +1,135 @@
+package org.school.analysis.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.school.analysis.config.AppConfig.ALL_ACADEMIC_YEAR;
+import static org.school.analysis.config.AppConfig.STUDENT_RESULTS_PARTITIONING_ENABLED;
+
+/**
+ * Секционирование student_results по учебному году (PARTITION BY LIST (academic_year)).
+ * Таблицу создает Hibernate (ddl-auto: update); при первом старте она один раз пересоздается как
+ * секционированная с переносом строк, дальше при каждом старте досоздаются секции для ALL_ACADEMIC_YEAR.
+ * Годы вне списка и строки без года попадают в секцию student_results_default.
+ * Завершенный год убирается без DELETE: ALTER TABLE student_results DETACH PARTITION student_results_ГГГГ_ГГГГ.
+ * <p>
+ * report_files не секционируется: уникальность file_hash (ON CONFLICT) и внешний ключ учеников
+ * требуют уникальных ограничений без ключа секционирования, а строк в ней - по одной на файл.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StudentResultsPartitioning {
+
+    private static final String TABLE = "student_results";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final String OLD_TABLE = TABLE + "_unpartitioned";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // До остальных задач старта (перенос баллов, расчет статистики), которые пишут в student_results
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitions() {
+        if (!STUDENT_RESULTS_PARTITIONING_ENABLED) {
+            return;
+        }
+        try {
+            String relkind = jdbcTemplate.queryForObject(
+                    "SELECT (SELECT CAST(relkind AS text) FROM pg_class WHERE oid = to_regclass(?))",
+                    String.class, TABLE);
+            if (relkind == null) {
+                return;
+            }
+            if ("r".equals(relkind)) {
+                transactionTemplate.executeWithoutResult(status -> convertToPartitioned());
+            }
+            for (String academicYear : ALL_ACADEMIC_YEAR) {
+                if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NULL",
+                        Boolean.class, partitionName(academicYear)))) {
+                    transactionTemplate.executeWithoutResult(status -> addPartition(academicYear));
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Ошибка секционирования {}: {}", TABLE, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Пересоздать обычную таблицу как секционированную (в одной транзакции).
+     * Индексы и внешний ключ строятся после переноса строк.
+     */
+    private void convertToPartitioned() {
+        log.info("🔁 Перевод {} на секционирование по учебному году", TABLE);
+
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'f'",
+                String.class, TABLE);
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + OLD_TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + OLD_TABLE + " INCLUDING DEFAULTS) "
+                + "PARTITION BY LIST (academic_year)");
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+
+        Set<String> academicYears = new LinkedHashSet<>(ALL_ACADEMIC_YEAR);
+        academicYears.addAll(jdbcTemplate.queryForList(
+                "SELECT DISTINCT academic_year FROM " + OLD_TABLE + " WHERE academic_year IS NOT NULL",
+                String.class));
+        for (String academicYear : academicYears) {
+            createPartition(academicYear);
+        }
+
+        int rows = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + OLD_TABLE);
+        jdbcTemplate.execute("DROP TABLE " + OLD_TABLE);
+
+        // Уникальный ключ обязан включать ключ секционирования; academic_year может быть NULL,
+        // поэтому вместо PRIMARY KEY - уникальный индекс (id и так уникален: UUID)
+        jdbcTemplate.execute("CREATE UNIQUE INDEX " + TABLE + "_id_year_key ON " + TABLE + " (id, academic_year)");
+        jdbcTemplate.execute("CREATE INDEX idx_student_results_report_file ON " + TABLE + " (report_file_id)");
+        for (String foreignKey : foreignKeys.isEmpty() ? List.of("fk_student_results_report_file") : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + foreignKey
+                    + " FOREIGN KEY (report_file_id) REFERENCES report_files (id)");
+        }
+
+        log.info("✅ {} секционирована по годам {}, перенесено строк: {}", TABLE, academicYears, rows);
+    }
+
+    /**
+     * Новая секция для года; строки этого года, уже попавшие в секцию по умолчанию, переносятся в нее
+     * (пока секция по умолчанию содержит такие строки, PostgreSQL не даст создать секцию напрямую)
+     */
+    private void addPartition(String academicYear) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+        createPartition(academicYear);
+        int moved = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + DEFAULT_PARTITION
+                + " WHERE academic_year = ?", academicYear);
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE academic_year = ?", academicYear);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+        log.info("➕ Добавлена секция {} ({}), перенесено строк: {}", partitionName(academicYear), academicYear, moved);
+    }
+
+    private void createPartition(String academicYear) {
+        jdbcTemplate.execute("CREATE TABLE " + partitionName(academicYear) + " PARTITION OF " + TABLE
+                + " FOR VALUES IN ('" + academicYear.replace("'", "''") + "')");
+    }
+
+    /**
+     * Имя секции: "2025-2026" -> student_results_2025_2026
+     */
+    private static String partitionName(String academicYear) {
+        String suffix = academicYear.replaceAll("[^0-9A-Za-z]+", "_").replaceAll("^_|_$", "");
+        return TABLE + "_" + (suffix.isEmpty() ? "y" + Integer.toHexString(academicYear.hashCode()) : suffix);
+    }
+}
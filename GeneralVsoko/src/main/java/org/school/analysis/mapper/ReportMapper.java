@@ -3,8 +3,8 @@ package org.school.analysis.mapper;
 import org.school.analysis.model.entity.ReportFileEntity;
 import org.school.analysis.model.entity.StudentResultEntity;
 import org.school.analysis.model.ReportFile;
+import org.school.analysis.model.ScoreVector;
 import org.school.analysis.model.StudentResult;
-import org.school.analysis.util.JsonScoreUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -42,10 +42,11 @@ public class ReportMapper {
                 .teacher(truncate(model.getTeacher(), FIO_MAX, "report_files.teacher"))
                 .schoolName(model.getSchoolName() != null ? model.getSchoolName() : "ГБОУ №7")
                 .academicYear(model.getAcademicYear() != null ? model.getAcademicYear() : "2025-2026")
-                .taskCount(model.getMaxScores() != null ? model.getMaxScores().size() : 0)
+                .taskCount(model.getMaxScores().getTaskCount())
                 .testType(truncate(model.getTestType(), TEST_TYPE_MAX, "report_files.test_type"))
                 .comment(model.getComment())
-                .maxScoresJson(JsonScoreUtils.mapToJson(model.getMaxScores()))
+                .maxScoresJson(model.getMaxScoresJson())
+                .maxScores(model.getMaxScores())
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
@@ -67,7 +68,9 @@ public class ReportMapper {
         model.setTeacher(entity.getTeacher());
         model.setSchoolName(entity.getSchoolName());
         model.setTaskCount(entity.getTaskCount());
-        model.setMaxScores(JsonScoreUtils.jsonToMap(entity.getMaxScoresJson()));
+        model.setMaxScores(entity.getMaxScores() != null
+                ? entity.getMaxScores()
+                : ScoreVector.fromJson(entity.getMaxScoresJson()));
         model.setTestType(entity.getTestType());
         model.setComment(entity.getComment());
         model.setAcademicYear(entity.getAcademicYear());
@@ -88,9 +91,10 @@ public class ReportMapper {
                 .variant(truncate(model.getVariant(), VARIANT_MAX, "student_results.variant"))
                 .testType(truncate(model.getTestType(), TEST_TYPE_MAX, "student_results.test_type"))
                 .testDate(model.getTestDate())
-                .totalScore(JsonScoreUtils.calculateTotalScore(model.getTaskScores()))
+                .totalScore(model.getScoreVector() != null ? model.getScoreVector().getTotal() : 0)
                 .percentageScore(model.getPercentageScore())
-                .taskScoresJson(JsonScoreUtils.mapToJson(model.getTaskScores()))
+                .taskScoresJson(model.getScoreVector() != null ? model.getScoreVector().toJson() : null)
+                .taskScores(model.getScoreVector())
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .schoolName(model.getSchoolName())
@@ -113,7 +117,11 @@ public class ReportMapper {
         model.setTestDate(entity.getTestDate());
         model.setTotalScore(entity.getTotalScore());
         model.setPercentageScore(entity.getPercentageScore()); // Добавьте это поле
-        model.setTaskScores(JsonScoreUtils.jsonToMap(entity.getTaskScoresJson()));
+        if (entity.getTaskScores() != null) {
+            model.setScoreVector(entity.getTaskScores());
+        } else {
+            model.setTaskScoresJson(entity.getTaskScoresJson());
+        }
         model.setSchoolName(entity.getSchoolName());
         model.setAcademicYear(entity.getAcademicYear());
         return model;
@@ -135,10 +143,11 @@ public class ReportMapper {
         entity.setTestDate(model.getTestDate());
         entity.setTeacher(truncate(model.getTeacher(), FIO_MAX, "report_files.teacher"));
         entity.setSchoolName(model.getSchoolName() != null ? model.getSchoolName() : entity.getSchoolName());
-        entity.setTaskCount(model.getMaxScores() != null ? model.getMaxScores().size() : entity.getTaskCount());
+        entity.setTaskCount(model.getMaxScores().getTaskCount());
         entity.setTestType(truncate(model.getTestType(), TEST_TYPE_MAX, "report_files.test_type"));
         entity.setComment(model.getComment());
-        entity.setMaxScoresJson(JsonScoreUtils.mapToJson(model.getMaxScores()));
+        entity.setMaxScoresJson(model.getMaxScoresJson());
+        entity.setMaxScores(model.getMaxScores());
         entity.setUpdatedAt(LocalDateTime.now());
         entity.setAcademicYear(model.getAcademicYear());
     }
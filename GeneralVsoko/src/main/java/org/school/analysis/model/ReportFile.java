@@ -1,12 +1,10 @@
 package org.school.analysis.model;
 
 import lombok.Data;
-import org.school.analysis.util.JsonScoreUtils;
 
 import java.io.File;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Map;
 
 @Data
 public class ReportFile {
@@ -21,11 +19,11 @@ public class ReportFile {
     private String teacher;
     private String schoolName = "ГБОУ №7";
     private String academicYear = "2025-2026";
+    private String fileHash;  // SHA-256 содержимого (вычисляется до парсинга для проверки дубликатов)
 
     // Параметры теста
     private int taskCount;
-    private Map<Integer, Integer> maxScores;  // Теперь Map в памяти
-
+    private ScoreVector maxScores = ScoreVector.EMPTY;  // Максимальные баллы по заданиям, упакованные
 
     // Дополнительно
     private String testType;
@@ -39,21 +37,25 @@ public class ReportFile {
      * Получить максимальный балл как JSON для БД
      */
     public String getMaxScoresJson() {
-        return JsonScoreUtils.mapToJson(maxScores);
+        return maxScores.toJson();
     }
 
     /**
      * Установить максимальные баллы из JSON
      */
     public void setMaxScoresJson(String json) {
-        this.maxScores = JsonScoreUtils.jsonToMap(json);
+        setMaxScores(ScoreVector.fromJson(json));
+    }
+
+    public void setMaxScores(ScoreVector maxScores) {
+        this.maxScores = maxScores != null ? maxScores : ScoreVector.EMPTY;
     }
 
     /**
      * Рассчитать максимальный итоговый балл
      */
     public int getMaxTotalScore() {
-        return JsonScoreUtils.calculateTotalScore(maxScores);
+        return maxScores.getTotal();
     }
 
 }
\ No newline at end of file
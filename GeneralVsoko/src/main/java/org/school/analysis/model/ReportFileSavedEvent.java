@@ -0,0 +1,15 @@
+package org.school.analysis.model;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Событие успешного сохранения файла отчета. Публикуется SavedService в транзакции сохранения,
+ * поэтому синхронные обработчики видят сохраненные строки и откатываются вместе с ними.
+ *
+ * @param reportFileId   ID строки report_files
+ * @param reportFile     сохраненный файл (предмет, класс, учитель, максимальные баллы)
+ * @param studentResults сохраненные результаты учеников
+ */
+public record ReportFileSavedEvent(UUID reportFileId, ReportFile reportFile, List<StudentResult> studentResults) {
+}
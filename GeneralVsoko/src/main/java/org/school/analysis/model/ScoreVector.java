@@ -0,0 +1,248 @@
+package org.school.analysis.model;
+
+import org.school.analysis.util.JsonScoreUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Баллы за задания в упакованном виде: значения лежат в long[] по bitsPerScore бит
+ * (ширина - по наибольшему баллу вектора; баллы 0..7 занимают 3 бита, 100 заданий - 5 long).
+ * Отрицательный балл переводит вектор на 32 бита на значение. Ширину можно взять из вектора
+ * максимальных баллов теста (см. {@link #withWidthOf}), тогда все ученики теста упакованы одинаково.
+ * Сумма считается один раз при создании; JSON для БД формируется только при сохранении.
+ * Используется и для баллов ученика, и для максимальных баллов теста.
+ */
+public final class ScoreVector {
+
+    /**
+     * Обработчик балла при обходе вектора
+     */
+    @FunctionalInterface
+    public interface TaskScoreConsumer {
+        void accept(int taskNumber, int score);
+    }
+
+    private static final long[] NO_WORDS = new long[0];
+
+    public static final ScoreVector EMPTY = new ScoreVector(new int[0], 0);
+
+    private final long[] words;
+    private final int taskCount;
+    private final int bitsPerScore;
+    private final int total;
+
+    private ScoreVector(int[] scores, int minBitsPerScore) {
+        int sum = 0;
+        int allBits = 0;
+        boolean hasNegative = false;
+        for (int score : scores) {
+            sum += score;
+            allBits |= score;
+            hasNegative |= score < 0;
+        }
+        this.total = sum;
+        this.taskCount = scores.length;
+        int requiredBits = hasNegative ? Integer.SIZE : Integer.SIZE - Integer.numberOfLeadingZeros(allBits);
+        this.bitsPerScore = scores.length == 0 ? 0 : Math.min(Integer.SIZE, Math.max(requiredBits, minBitsPerScore));
+
+        if (bitsPerScore == 0) {
+            // Все баллы нулевые - хранить нечего
+            this.words = NO_WORDS;
+            return;
+        }
+        int perWord = Long.SIZE / bitsPerScore;
+        long mask = mask(bitsPerScore);
+        this.words = new long[(scores.length + perWord - 1) / perWord];
+        for (int i = 0; i < scores.length; i++) {
+            words[i / perWord] |= (scores[i] & mask) << ((i % perWord) * bitsPerScore);
+        }
+    }
+
+    private static long mask(int bits) {
+        return bits == Long.SIZE ? -1L : (1L << bits) - 1;
+    }
+
+    /**
+     * Вектор из массива баллов (индекс = номер задания - 1); массив упаковывается и дальше не используется
+     */
+    public static ScoreVector of(int[] scores) {
+        return scores == null || scores.length == 0 ? EMPTY : new ScoreVector(scores, 0);
+    }
+
+    /**
+     * Тот же вектор, упакованный не уже ширины вектора максимальных баллов (баллы выше максимума
+     * или отрицательные расширяют упаковку). Если ширина уже подходит, возвращается этот же вектор.
+     */
+    public ScoreVector withWidthOf(ScoreVector maxScores) {
+        int targetBits = maxScores != null ? maxScores.bitsPerScore : 0;
+        if (taskCount == 0 || bitsPerScore >= targetBits) {
+            return this;
+        }
+        return new ScoreVector(toArray(), targetBits);
+    }
+
+    /**
+     * Вектор из Map (номер задания -> балл). Пропущенные задания и null считаются нулем,
+     * номера меньше 1 игнорируются.
+     */
+    public static ScoreVector fromMap(Map<Integer, Integer> scores) {
+        if (scores == null || scores.isEmpty()) {
+            return EMPTY;
+        }
+        int taskCount = 0;
+        for (Integer taskNumber : scores.keySet()) {
+            if (taskNumber != null) {
+                taskCount = Math.max(taskCount, taskNumber);
+            }
+        }
+        int[] values = new int[taskCount];
+        scores.forEach((taskNumber, score) -> {
+            if (taskNumber != null && taskNumber >= 1 && score != null) {
+                values[taskNumber - 1] = score;
+            }
+        });
+        return of(values);
+    }
+
+    /**
+     * Вектор из JSON баллов {"1":2,...} без промежуточной Map (см. JsonScoreUtils.jsonToArray)
+     */
+    public static ScoreVector fromJson(String json) {
+        return of(JsonScoreUtils.jsonToArray(json));
+    }
+
+    /**
+     * Процент выполнения с округлением до сотых; null, если максимум неизвестен
+     */
+    public static Double percentage(int total, int maxTotal) {
+        if (maxTotal <= 0) {
+            return null;
+        }
+        double percentage = (total * 100.0) / maxTotal;
+        return Math.round(percentage * 100.0) / 100.0;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Бит на один балл в упакованном представлении (0 - все баллы нулевые)
+     */
+    public int getBitsPerScore() {
+        return bitsPerScore;
+    }
+
+    /**
+     * Балл за задание (номер с 1); 0 для задания вне вектора
+     */
+    public int get(int taskNumber) {
+        if (taskNumber < 1 || taskNumber > taskCount || bitsPerScore == 0) {
+            return 0;
+        }
+        int index = taskNumber - 1;
+        int perWord = Long.SIZE / bitsPerScore;
+        // Приведение к int восстанавливает знак для 32-битных значений
+        return (int) ((words[index / perWord] >>> ((index % perWord) * bitsPerScore)) & mask(bitsPerScore));
+    }
+
+    /**
+     * Обход всех заданий по порядку (последовательное чтение слов без деления на каждый балл)
+     */
+    public void forEach(TaskScoreConsumer consumer) {
+        if (bitsPerScore == 0) {
+            for (int task = 1; task <= taskCount; task++) {
+                consumer.accept(task, 0);
+            }
+            return;
+        }
+        int perWord = Long.SIZE / bitsPerScore;
+        long mask = mask(bitsPerScore);
+        int task = 1;
+        for (long word : words) {
+            for (int slot = 0; slot < perWord && task <= taskCount; slot++, task++) {
+                consumer.accept(task, (int) (word & mask));
+                word >>>= bitsPerScore;
+            }
+        }
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return taskCount == 0;
+    }
+
+    /**
+     * Процент от максимального балла (см. {@link #percentage(int, int)})
+     */
+    public Double percentageOf(int maxTotal) {
+        return percentage(total, maxTotal);
+    }
+
+    /**
+     * Распакованные баллы (индекс = номер задания - 1)
+     */
+    public int[] toArray() {
+        int[] scores = new int[taskCount];
+        forEach((task, score) -> scores[task - 1] = score);
+        return scores;
+    }
+
+    /**
+     * Map (номер задания -> балл) для кода, работающего с баллами как с Map
+     */
+    public Map<Integer, Integer> asMap() {
+        if (taskCount == 0) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, Integer> map = new LinkedHashMap<>(taskCount * 4 / 3 + 1);
+        forEach(map::put);
+        return map;
+    }
+
+    /**
+     * JSON в формате колонки task_scores_json: {"1":2,"2":0,...}; null для пустого вектора
+     */
+    public String toJson() {
+        return JsonScoreUtils.arrayToJson(toArray());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ScoreVector other) || taskCount != other.taskCount || total != other.total) {
+            return false;
+        }
+        if (bitsPerScore == other.bitsPerScore) {
+            return Arrays.equals(words, other.words);
+        }
+        // Одинаковые баллы, упакованные с разной шириной (см. withWidthOf)
+        for (int task = 1; task <= taskCount; task++) {
+            if (get(task) != other.get(task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // По значениям, а не по словам: не зависит от ширины упаковки
+        int[] hash = {taskCount};
+        forEach((task, score) -> hash[0] = 31 * hash[0] + score);
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,37 @@
+package org.school.analysis.model;
+
+/**
+ * Разрез накопительной статистики (порядок констант - порядок блокировки строк агрегатов)
+ */
+public enum StatsDimension {
+    SUBJECT("Предмет"),
+    CLASS("Класс"),
+    TEACHER("Учитель"),
+    TASK("Задание теста");
+
+    // Разделитель частей ключа теста в разрезе TASK
+    private static final String TEST_KEY_SEPARATOR = "|";
+
+    private final String description;
+
+    StatsDimension(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Ключ теста для разреза TASK: предмет|класс|тип теста (пустая часть - значение не указано);
+     * null без предмета. Номера заданий сопоставимы только внутри одного теста.
+     */
+    public static String testKey(String subject, String className, String testType) {
+        if (subject == null || subject.isBlank()) {
+            return null;
+        }
+        return String.join(TEST_KEY_SEPARATOR, subject.trim(),
+                className != null ? className.trim() : "",
+                testType != null ? testType.trim() : "");
+    }
+}
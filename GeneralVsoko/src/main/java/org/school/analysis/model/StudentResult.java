@@ -1,7 +1,6 @@
 package org.school.analysis.model;
 
 import lombok.Data;
-import org.school.analysis.util.JsonScoreUtils;
 
 import java.time.LocalDate;
 import java.util.Map;
@@ -20,17 +19,28 @@ public class StudentResult {
     private String schoolName = "ГБОУ №7";
     private String academicYear = "2025-2026";
 
-    // Map в памяти для удобной работы
-    private Map<Integer, Integer> taskScores;
+    // Баллы за задания, упакованные в ScoreVector (номер задания с 1)
+    private ScoreVector scoreVector;
+
+    /**
+     * Баллы в виде Map (номер задания -> балл); строится из вектора при каждом вызове
+     */
+    public Map<Integer, Integer> getTaskScores() {
+        return scoreVector != null ? scoreVector.asMap() : null;
+    }
+
+    public void setTaskScores(Map<Integer, Integer> taskScores) {
+        this.scoreVector = taskScores != null ? ScoreVector.fromMap(taskScores) : null;
+    }
 
     // Для удобства - геттер JSON
     public String getTaskScoresJson() {
-        return JsonScoreUtils.mapToJson(taskScores);
+        return scoreVector != null ? scoreVector.toJson() : null;
     }
 
     // Для удобства - сеттер из JSON
     public void setTaskScoresJson(String json) {
-        this.taskScores = JsonScoreUtils.jsonToMap(json);
+        this.scoreVector = ScoreVector.fromJson(json);
     }
 
     // Вычисляемые методы
@@ -42,6 +52,6 @@ public class StudentResult {
         if (totalScore != null) {
             return totalScore;
         }
-        return JsonScoreUtils.calculateTotalScore(taskScores);
+        return scoreVector != null ? scoreVector.getTotal() : 0;
     }
 }
\ No newline at end of file
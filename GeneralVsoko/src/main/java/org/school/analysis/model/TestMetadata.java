@@ -1,10 +1,8 @@
 package org.school.analysis.model;
 
 import lombok.Data;
-import org.school.analysis.util.JsonScoreUtils;
 
 import java.time.LocalDate;
-import java.util.Map;
 
 @Data
 public class TestMetadata {
@@ -13,7 +11,7 @@ public class TestMetadata {
     private LocalDate testDate;
     private String teacher;
     private String schoolName = "ГБОУ №7";
-    private Map<Integer, Integer> maxScores; // Map в памяти
+    private ScoreVector maxScores = ScoreVector.EMPTY; // Максимальные баллы по заданиям
     private String testType;
     private String comment;
     private String academicYear = "2025-2026";
@@ -22,13 +20,17 @@ public class TestMetadata {
      * Вычислить максимальный общий балл
      */
     public int getMaxTotalScore() {
-        return JsonScoreUtils.calculateTotalScore(maxScores);
+        return maxScores.getTotal();
     }
 
     /**
      * Получить количество заданий
      */
     public int getTaskCount() {
-        return maxScores != null ? maxScores.size() : 0;
+        return maxScores.getTaskCount();
+    }
+
+    public void setMaxScores(ScoreVector maxScores) {
+        this.maxScores = maxScores != null ? maxScores : ScoreVector.EMPTY;
     }
 }
\ No newline at end of file
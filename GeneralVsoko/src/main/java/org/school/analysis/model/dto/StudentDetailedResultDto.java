@@ -2,8 +2,7 @@ package org.school.analysis.model.dto;
 
 import lombok.Builder;
 import lombok.Data;
-
-import java.util.Map;
+import org.school.analysis.model.ScoreVector;
 
 @Data
 @Builder
@@ -13,7 +12,7 @@ public class StudentDetailedResultDto {
     private String variant;
     private Integer totalScore;
     private Double percentageScore;
-    private Map<Integer, Integer> taskScores; // Баллы по заданиям
+    private ScoreVector taskScores; // Баллы по заданиям
     private String academicYear;
     private String schoolName;
 }
\ No newline at end of file
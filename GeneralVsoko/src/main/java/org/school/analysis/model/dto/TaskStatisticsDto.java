@@ -1,58 +1,137 @@
 package org.school.analysis.model.dto;
 
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-@Data
-@Builder
+/**
+ * Статистика задания: гистограмма баллов в примитивном массиве (индекс = балл).
+ * Производные показатели считаются один раз при фиксации гистограммы - явно через freeze()
+ * или при первом чтении любого показателя; после этого добавлять баллы нельзя.
+ */
 public class TaskStatisticsDto {
-    private Integer taskNumber;
-    private Integer maxScore;
 
-    @Builder.Default
-    private Map<Integer, Integer> scoreDistribution = new HashMap<>();
+    @Getter
+    private final Integer taskNumber;
+    @Getter
+    private final Integer maxScore;
 
-    public void incrementScoreCount(Integer score) {
-        scoreDistribution.merge(score, 1, Integer::sum);
+    private int[] histogram;
+    private boolean frozen;
+
+    // Производные показатели (заполняются в freeze)
+    private Map<Integer, Integer> scoreDistribution;
+    private int totalStudents;
+    private int fullyCompletedCount;
+    private int partiallyCompletedCount;
+    private int notCompletedCount;
+    private double completionPercentage;
+
+    @Builder
+    private TaskStatisticsDto(Integer taskNumber, Integer maxScore) {
+        this.taskNumber = taskNumber;
+        this.maxScore = maxScore;
+        this.histogram = new int[Math.max(0, maxScore != null ? maxScore : 0) + 1];
+    }
+
+    public void incrementScoreCount(int score) {
+        addScoreCount(score, 1);
+    }
+
+    /**
+     * Добавить count учеников с баллом score (отрицательный балл считается нулем,
+     * балл выше максимального расширяет гистограмму)
+     */
+    public void addScoreCount(int score, int count) {
+        if (frozen) {
+            throw new IllegalStateException("Статистика задания " + taskNumber + " уже зафиксирована");
+        }
+        int bucket = Math.max(0, score);
+        if (bucket >= histogram.length) {
+            histogram = Arrays.copyOf(histogram, bucket + 1);
+        }
+        histogram[bucket] += count;
+    }
+
+    /**
+     * Добавить гистограмму целиком (элемент i - число учеников с баллом i)
+     */
+    public void addHistogram(int[] counts) {
+        for (int score = 0; score < counts.length; score++) {
+            if (counts[score] != 0) {
+                addScoreCount(score, counts[score]);
+            }
+        }
+    }
+
+    /**
+     * Зафиксировать гистограмму и рассчитать производные показатели
+     */
+    public TaskStatisticsDto freeze() {
+        if (frozen) {
+            return this;
+        }
+        int max = maxScore != null ? maxScore : 0;
+        Map<Integer, Integer> distribution = new LinkedHashMap<>();
+        long scoreSum = 0;
+        for (int score = 0; score < histogram.length; score++) {
+            int count = histogram[score];
+            if (count == 0) {
+                continue;
+            }
+            distribution.put(score, count);
+            totalStudents += count;
+            scoreSum += (long) score * count;
+            if (score > 0 && score < max) {
+                partiallyCompletedCount += count;
+            }
+        }
+        fullyCompletedCount = max < histogram.length ? histogram[max] : 0;
+        notCompletedCount = histogram[0];
+
+        double maxPossibleSum = (double) max * totalStudents;
+        completionPercentage = maxPossibleSum == 0 ? 0.0 : (scoreSum / maxPossibleSum) * 100.0;
+
+        scoreDistribution = Collections.unmodifiableMap(distribution);
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * Распределение баллов (балл -> учеников), только ненулевые, по возрастанию балла
+     */
+    public Map<Integer, Integer> getScoreDistribution() {
+        return freeze().scoreDistribution;
     }
 
-    // Геттеры для удобства
     public int getFullyCompletedCount() {
-        return scoreDistribution.getOrDefault(maxScore, 0);
+        return freeze().fullyCompletedCount;
     }
 
     public int getPartiallyCompletedCount() {
-        return scoreDistribution.entrySet().stream()
-                .filter(e -> e.getKey() > 0 && e.getKey() < maxScore)
-                .mapToInt(Map.Entry::getValue)
-                .sum();
+        return freeze().partiallyCompletedCount;
     }
 
     public int getNotCompletedCount() {
-        return scoreDistribution.getOrDefault(0, 0);
+        return freeze().notCompletedCount;
     }
 
     public int getTotalStudents() {
-        return scoreDistribution.values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+        return freeze().totalStudents;
     }
 
     // Возвращает double (не может быть null)
     public double getCompletionPercentage() {
-        int totalStudents = getTotalStudents();
-        if (totalStudents == 0) return 0.0;
-
-        double totalScoreSum = scoreDistribution.entrySet().stream()
-                .mapToDouble(e -> e.getKey() * e.getValue())
-                .sum();
-
-        double maxPossibleSum = maxScore * totalStudents;
-        if (maxPossibleSum == 0) return 0.0;
+        return freeze().completionPercentage;
+    }
 
-        return (totalScoreSum / maxPossibleSum) * 100.0;
+    @Override
+    public String toString() {
+        return "TaskStatisticsDto(taskNumber=" + taskNumber + ", maxScore=" + maxScore
+                + ", scoreDistribution=" + getScoreDistribution() + ")";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package org.school.analysis.model.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import org.school.analysis.analytics.RunningStats;
+
+import java.util.Map;
+
+/**
+ * DTO накопительной статистики школы за учебный год (stats_aggregates) для сводного отчета.
+ * Для предмета, класса и учителя - процент выполнения, для заданий - балл за задание.
+ */
+@Data
+@Builder
+public class YearStatsDto {
+    private Map<String, RunningStats> subjects;
+    private Map<String, RunningStats> classes;
+    private Map<String, RunningStats> teachers;
+
+    // Название теста (предмет, класс, тип) -> номер задания -> статистика
+    private Map<String, Map<Integer, RunningStats>> tasksByTest;
+}
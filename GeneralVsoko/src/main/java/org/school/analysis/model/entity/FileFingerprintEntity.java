@@ -0,0 +1,49 @@
+package org.school.analysis.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Отпечаток файла: (путь, размер, время изменения) -> SHA-256 содержимого.
+ * Позволяет не пересчитывать хеш неизмененных файлов при повторных запусках.
+ */
+@Entity
+@Table(name = "file_fingerprints")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileFingerprintEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "file_path", nullable = false, length = 1000, unique = true)
+    private String filePath;
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    @Column(name = "last_modified", nullable = false)
+    private Long lastModified;
+
+    @Column(name = "file_hash", nullable = false, length = 64)
+    private String fileHash;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Совпадает ли отпечаток с текущим состоянием файла
+     */
+    public boolean matches(long size, long modified) {
+        return fileSize != null && lastModified != null
+                && fileSize == size && lastModified == modified;
+    }
+}
@@ -3,8 +3,11 @@ package org.school.analysis.model.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 import org.school.analysis.model.ProcessingStatus;
+import org.school.analysis.model.ScoreVector;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -13,7 +16,13 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "report_files")
+@Table(name = "report_files", indexes = {
+        // Имена колонок - как в @Column (schoolName в БД становится school_name)
+        // Сводки и список учителей: школа + учебный год, сортировка по дате теста
+        @Index(name = "idx_report_files_school_year_date", columnList = "schoolName, academic_year, test_date"),
+        // Тесты учителя
+        @Index(name = "idx_report_files_teacher_school_year", columnList = "teacher, schoolName, academic_year")
+})
 @Getter
 @Setter
 @ToString(exclude = {"studentResults"})  // Теперь исключаем только studentResults
@@ -79,6 +88,12 @@ public class ReportFileEntity {
     @Column(name = "max_scores_json", columnDefinition = "TEXT")
     private String maxScoresJson;
 
+    // Максимальные баллы по заданиям массивом (см. StudentResultEntity.taskScores)
+    @Convert(converter = ScoreVectorConverter.class)
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "max_scores", columnDefinition = "smallint[]")
+    private ScoreVector maxScores;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
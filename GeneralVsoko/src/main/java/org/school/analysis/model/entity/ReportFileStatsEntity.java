@@ -0,0 +1,73 @@
+package org.school.analysis.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Статистика файла отчета, рассчитанная при сохранении (данные файла после сохранения не меняются).
+ * Баллы - итоговые баллы присутствовавших учеников.
+ */
+@Entity
+@Table(name = "report_file_stats")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportFileStatsEntity {
+
+    @Id
+    @Column(name = "report_file_id")
+    private UUID reportFileId;
+
+    @Column(name = "student_count", nullable = false)
+    private Integer studentCount;
+
+    @Column(name = "present_count", nullable = false)
+    private Integer presentCount;
+
+    @Column(name = "absent_count", nullable = false)
+    private Integer absentCount;
+
+    @Column(name = "max_total_score", nullable = false)
+    private Integer maxTotalScore;
+
+    @Column(name = "score_sum", nullable = false)
+    private Long scoreSum;
+
+    // null - нет присутствовавших
+    @Column(name = "average_score")
+    private Double averageScore;
+
+    @Column(name = "min_score")
+    private Integer minScore;
+
+    @Column(name = "max_score")
+    private Integer maxScore;
+
+    // Перцентили с линейной интерполяцией (как percentile_cont в PostgreSQL)
+    @Column(name = "p25_score")
+    private Double p25Score;
+
+    @Column(name = "median_score")
+    private Double medianScore;
+
+    @Column(name = "p75_score")
+    private Double p75Score;
+
+    @Column(name = "p90_score")
+    private Double p90Score;
+
+    // Файл учтен в stats_aggregates (null - статистика рассчитана до появления агрегатов)
+    @Column(name = "aggregated")
+    private Boolean aggregated;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,52 @@
+package org.school.analysis.model.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.school.analysis.model.ScoreVector;
+
+/**
+ * ScoreVector <-> smallint[] (элемент i - балл за задание i + 1).
+ * Пустой вектор хранится как NULL, так же как пустой JSON баллов.
+ */
+@Converter
+public class ScoreVectorConverter implements AttributeConverter<ScoreVector, short[]> {
+
+    @Override
+    public short[] convertToDatabaseColumn(ScoreVector vector) {
+        if (vector == null || vector.isEmpty()) {
+            return null;
+        }
+        short[] column = new short[vector.getTaskCount()];
+        vector.forEach((task, score) -> column[task - 1] = (short) score);
+        return column;
+    }
+
+    @Override
+    public ScoreVector convertToEntityAttribute(short[] column) {
+        if (column == null) {
+            return null;
+        }
+        int[] scores = new int[column.length];
+        for (int i = 0; i < column.length; i++) {
+            scores[i] = column[i];
+        }
+        return ScoreVector.of(scores);
+    }
+
+    /**
+     * Текстовый литерал массива PostgreSQL ({2,0,3}) для COPY и нативных запросов; null для пустого вектора
+     */
+    public static String toArrayLiteral(ScoreVector vector) {
+        if (vector == null || vector.isEmpty()) {
+            return null;
+        }
+        StringBuilder literal = new StringBuilder(vector.getTaskCount() * 3 + 2).append('{');
+        for (int task = 1; task <= vector.getTaskCount(); task++) {
+            if (task > 1) {
+                literal.append(',');
+            }
+            literal.append(vector.get(task));
+        }
+        return literal.append('}').toString();
+    }
+}
@@ -0,0 +1,76 @@
+package org.school.analysis.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
+import org.school.analysis.model.StatsDimension;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Накопительная статистика школы за учебный год в одном разрезе (предмет, класс, учитель
+ * или задание теста). Обновляется при сохранении каждого файла слиянием со статистикой файла.
+ * Для предмета, класса и учителя значения - процент выполнения присутствовавших учеников
+ * (корзины гистограммы по STATS_PERCENT_BUCKET_WIDTH), для задания - балл за задание (корзина = балл).
+ */
+@Entity
+@Table(name = "stats_aggregates",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"school_name", "academic_year", "dimension", "dimension_key", "task_number"}))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsAggregateEntity {
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.TIME)
+    private UUID id;
+
+    @Column(name = "school_name", nullable = false)
+    private String schoolName;
+
+    @Column(name = "academic_year", nullable = false, length = 20)
+    private String academicYear;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", nullable = false, length = 20)
+    private StatsDimension dimension;
+
+    // Предмет, класс или учитель (для задания - ключ теста StatsDimension.testKey)
+    @Column(name = "dimension_key", nullable = false)
+    private String dimensionKey;
+
+    // Номер задания; 0 для разрезов без заданий
+    @Column(name = "task_number", nullable = false)
+    private Integer taskNumber;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    @Column(name = "mean", nullable = false)
+    private Double mean;
+
+    // Сумма квадратов отклонений от среднего (дисперсия = m2 / (sample_count - 1))
+    @Column(name = "m2", nullable = false)
+    private Double m2;
+
+    @Column(name = "min_value")
+    private Double minValue;
+
+    @Column(name = "max_value")
+    private Double maxValue;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "histogram", columnDefinition = "integer[]")
+    private int[] histogram;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
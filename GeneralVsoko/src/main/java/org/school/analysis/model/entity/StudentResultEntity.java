@@ -3,14 +3,21 @@ package org.school.analysis.model.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
+import org.school.analysis.model.ScoreVector;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "student_results")
+@Table(name = "student_results", indexes = {
+        // Ученики файла отчета (внешний ключ PostgreSQL не индексирует сам)
+        @Index(name = "idx_student_results_report_file", columnList = "report_file_id")
+})
 @Getter
 @Setter
 @ToString
@@ -19,8 +26,10 @@ import java.util.UUID;
 @Builder
 public class StudentResultEntity {
 
+    // UUID генерируется на клиенте (упорядоченный по времени - вставки идут в конец индекса)
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.TIME)
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -55,10 +64,16 @@ public class StudentResultEntity {
     @Column(name = "percentage_score")
     private Double percentageScore;
 
-    // Баллы храним как JSON
+    // Баллы храним как JSON (для совместимости)
     @Column(name = "task_scores_json", columnDefinition = "TEXT")
     private String taskScoresJson;
 
+    // Баллы по заданиям массивом: читаются без разбора JSON, пишутся напрямую при COPY и нативной вставке
+    @Convert(converter = ScoreVectorConverter.class)
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "task_scores", columnDefinition = "smallint[]")
+    private ScoreVector taskScores;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,46 @@
+package org.school.analysis.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
+
+import java.util.UUID;
+
+/**
+ * Статистика задания в файле отчета, рассчитанная при сохранении (только присутствовавшие ученики)
+ */
+@Entity
+@Table(name = "task_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"report_file_id", "task_number"}))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskStatsEntity {
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.TIME)
+    private UUID id;
+
+    @Column(name = "report_file_id", nullable = false)
+    private UUID reportFileId;
+
+    @Column(name = "task_number", nullable = false)
+    private Integer taskNumber;
+
+    @Column(name = "max_score", nullable = false)
+    private Integer maxScore;
+
+    @Column(name = "score_sum", nullable = false)
+    private Long scoreSum;
+
+    // Гистограмма: элемент i - число учеников с баллом i
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "score_histogram", columnDefinition = "integer[]")
+    private int[] scoreHistogram;
+}
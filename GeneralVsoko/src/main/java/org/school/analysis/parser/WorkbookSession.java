@@ -0,0 +1,179 @@
+package org.school.analysis.parser;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Сессия работы с одной книгой Excel.
+ * Пакет открывается один раз напрямую из файла в режиме только для чтения
+ * (без копирования потока в память), а проверка листов, парсинг метаданных
+ * и парсинг учеников используют одну и ту же сессию.
+ * DOM-модель книги и структуры потокового чтения создаются лениво по требованию.
+ */
+public class WorkbookSession implements AutoCloseable {
+
+    private final File file;
+    private final OPCPackage pkg;
+
+    private XSSFWorkbook workbook;
+    private XSSFReader reader;
+    private ReadOnlySharedStringsTable sharedStrings;
+    private StylesTable styles;
+    private Set<String> sheetNames;
+
+    private WorkbookSession(File file, OPCPackage pkg) {
+        this.file = file;
+        this.pkg = pkg;
+    }
+
+    /**
+     * Открыть книгу из файла (только чтение)
+     */
+    public static WorkbookSession open(File file) throws IOException {
+        try {
+            return new WorkbookSession(file, OPCPackage.open(file, PackageAccess.READ));
+        } catch (Exception e) {
+            throw new IOException("Не удалось открыть книгу " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public OPCPackage getPackage() {
+        return pkg;
+    }
+
+    /**
+     * Имена листов книги (читается только workbook.xml, сами листы не разбираются)
+     */
+    public Set<String> getSheetNames() throws IOException {
+        if (sheetNames == null) {
+            Set<String> names = new LinkedHashSet<>();
+            if (workbook != null) {
+                for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+                    names.add(workbook.getSheetName(i));
+                }
+            } else {
+                XSSFReader.SheetIterator sheets = getSheetIterator();
+                while (sheets.hasNext()) {
+                    try (InputStream ignored = sheets.next()) {
+                        names.add(sheets.getSheetName());
+                    }
+                }
+            }
+            sheetNames = Collections.unmodifiableSet(names);
+        }
+        return sheetNames;
+    }
+
+    /**
+     * Проверка наличия всех указанных листов
+     */
+    public boolean hasSheets(String... names) throws IOException {
+        Set<String> existing = getSheetNames();
+        for (String name : names) {
+            if (!existing.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * DOM-модель книги (строится один раз по уже открытому пакету)
+     */
+    public Workbook getWorkbook() throws IOException {
+        if (workbook == null) {
+            workbook = new XSSFWorkbook(pkg);
+        }
+        return workbook;
+    }
+
+    /**
+     * Лист DOM-модели по имени (null, если листа нет)
+     */
+    public Sheet getSheet(String name) throws IOException {
+        return getWorkbook().getSheet(name);
+    }
+
+    /**
+     * Итератор по потокам XML листов (XSSF event model)
+     */
+    public XSSFReader.SheetIterator getSheetIterator() throws IOException {
+        try {
+            return (XSSFReader.SheetIterator) getReader().getSheetsData();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Ошибка чтения листов книги " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Таблица общих строк для потокового чтения
+     */
+    public ReadOnlySharedStringsTable getSharedStrings() throws IOException {
+        if (sharedStrings == null) {
+            try {
+                sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Ошибка чтения общих строк книги " + file.getName() + ": " + e.getMessage(), e);
+            }
+        }
+        return sharedStrings;
+    }
+
+    /**
+     * Таблица стилей (нужна для форматирования чисел и дат при потоковом чтении)
+     */
+    public StylesTable getStyles() throws IOException {
+        if (styles == null) {
+            try {
+                styles = getReader().getStylesTable();
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Ошибка чтения стилей книги " + file.getName() + ": " + e.getMessage(), e);
+            }
+        }
+        return styles;
+    }
+
+    private XSSFReader getReader() throws IOException {
+        if (reader == null) {
+            try {
+                reader = new XSSFReader(pkg);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Ошибка открытия книги " + file.getName() + ": " + e.getMessage(), e);
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Пакет открыт только для чтения - закрываем без сохранения
+     */
+    @Override
+    public void close() {
+        pkg.revert();
+    }
+}
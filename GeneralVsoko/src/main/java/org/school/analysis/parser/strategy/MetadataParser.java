@@ -3,6 +3,7 @@ package org.school.analysis.parser.strategy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.school.analysis.exception.ValidationException;
+import org.school.analysis.model.ScoreVector;
 import org.school.analysis.model.TestMetadata;
 import org.school.analysis.service.TeacherService;
 import org.school.analysis.util.ExcelParser;
@@ -10,6 +11,7 @@ import org.school.analysis.util.ValidationHelper;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -28,6 +30,16 @@ public class MetadataParser {
     }
 
     public TestMetadata parseMetadata(Sheet infoSheet) {
+        if (infoSheet == null) {
+            throw new ValidationException("Лист 'Информация' не найден");
+        }
+        return parseMetadata(SheetValues.of(infoSheet));
+    }
+
+    /**
+     * Парсинг метаданных из значений листа 'Информация' (DOM или потоковое чтение)
+     */
+    public TestMetadata parseMetadata(SheetValues infoSheet) {
         TestMetadata metadata = new TestMetadata();
 
         if (infoSheet == null) {
@@ -36,11 +48,11 @@ public class MetadataParser {
 
         try {
             // 1. Собираем все данные
-            String rawTeacherName = ExcelParser.getCellValueAsString(infoSheet, 0, 1, "Не указан");
-            String testDateStr = ExcelParser.getCellValueAsString(infoSheet, 1, 1);
-            String subject = ExcelParser.getCellValueAsString(infoSheet, 2, 1, "Неизвестный предмет");
-            String className = ExcelParser.getCellValueAsString(infoSheet, 3, 1, "Неизвестный класс");
-            String maxScoresText = ExcelParser.getCellValueAsString(infoSheet, 5, 1, "нет баллов");
+            String rawTeacherName = infoSheet.getCellValue(0, 1, "Не указан");
+            String testDateStr = infoSheet.getCellValue(1, 1);
+            String subject = infoSheet.getCellValue(2, 1, "Неизвестный предмет");
+            String className = infoSheet.getCellValue(3, 1, "Неизвестный класс");
+            String maxScoresText = infoSheet.getCellValue(5, 1, "нет баллов");
 
             // 2. Проверяем обязательные поля
             ValidationHelper.ValidationResult validation = validateMandatoryFields(
@@ -55,11 +67,11 @@ public class MetadataParser {
             metadata.setTestDate(parseDate(testDateStr));
             metadata.setSubject(subject);
             metadata.setClassName(className);
-            metadata.setTestType(ExcelParser.getCellValueAsString(infoSheet, 4, 1, "Неизвестный тип работы"));
+            metadata.setTestType(infoSheet.getCellValue(4, 1, "Неизвестный тип работы"));
             metadata.setMaxScores(parseMaxScoresFromText(maxScoresText));
-            metadata.setComment(ExcelParser.getCellValueAsString(infoSheet, 6, 1, ""));
-            metadata.setSchoolName(ExcelParser.getCellValueAsString(infoSheet, 7, 1, "ГБОУ №7"));
-            metadata.setAcademicYear(ExcelParser.getCellValueAsString(infoSheet, 8, 1, "2025-2026"));
+            metadata.setComment(infoSheet.getCellValue(6, 1, ""));
+            metadata.setSchoolName(infoSheet.getCellValue(7, 1, "ГБОУ №7"));
+            metadata.setAcademicYear(infoSheet.getCellValue(8, 1, "2025-2026"));
 
             return metadata;
 
@@ -131,13 +143,13 @@ public class MetadataParser {
      * Парсинг максимальных баллов из текста
      * Формат: "1=2, 2=2, 3=3, 4=1, 5=2"
      */
-    private Map<Integer, Integer> parseMaxScoresFromText(String text) {
-        Map<Integer, Integer> maxScores = new HashMap<>();
-
+    private ScoreVector parseMaxScoresFromText(String text) {
         if (text == null || text.trim().isEmpty() || "нет баллов".equalsIgnoreCase(text.trim())) {
-            return maxScores;
+            return ScoreVector.EMPTY;
         }
 
+        Map<Integer, Integer> maxScores = new HashMap<>();
+
         String[] pairs = text.split(",");
         for (String pair : pairs) {
             String[] keyValue = pair.trim().split("=");
@@ -152,32 +164,34 @@ public class MetadataParser {
             }
         }
 
-        return maxScores;
+        // Пропущенные задания получают максимум 0 (отклоняется валидацией), номера меньше 1 отбрасываются
+        return ScoreVector.fromMap(maxScores);
     }
 
     /**
-     * Парсинг даты из строки
+     * Парсинг даты из строки ("дд.мм.гггг" или ISO "гггг-мм-дд") без исключений.
+     * Нераспознанная дата заменяется текущей.
      */
     private LocalDate parseDate(String dateString) {
         if (dateString == null || dateString.trim().isEmpty()) {
             return LocalDate.now();
         }
 
-        try {
-            // Попробуем разные форматы
-            if (dateString.contains(".")) {
-                String[] parts = dateString.split("\\.");
-                if (parts.length == 3) {
-                    return LocalDate.of(
-                            Integer.parseInt(parts[2]),
-                            Integer.parseInt(parts[1]),
-                            Integer.parseInt(parts[0])
-                    );
-                }
-            }
-            return LocalDate.parse(dateString);
-        } catch (Exception e) {
+        String value = dateString.trim();
+        String[] parts = value.contains(".") ? value.split("\\.") : value.split("-");
+        if (parts.length != 3) {
+            return LocalDate.now();
+        }
+
+        boolean dayFirst = value.contains(".");
+        int day = ExcelParser.parseWholeNumberOrSentinel(dayFirst ? parts[0] : parts[2]);
+        int month = ExcelParser.parseWholeNumberOrSentinel(parts[1]);
+        int year = ExcelParser.parseWholeNumberOrSentinel(dayFirst ? parts[2] : parts[0]);
+
+        if (year < 1 || year > 9999 || month < 1 || month > 12
+                || day < 1 || day > YearMonth.of(year, month).lengthOfMonth()) {
             return LocalDate.now();
         }
+        return LocalDate.of(year, month, day);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package org.school.analysis.parser.strategy;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.school.analysis.util.ExcelParser;
+
+/**
+ * Доступ к строковым значениям ячеек листа по координатам.
+ * Реализуется как поверх DOM-листа POI, так и поверх данных потокового (SAX) чтения.
+ */
+@FunctionalInterface
+public interface SheetValues {
+
+    /**
+     * Строковое значение ячейки (null, если ячейка пустая или отсутствует)
+     */
+    String getCellValue(int rowIndex, int colIndex);
+
+    default String getCellValue(int rowIndex, int colIndex, String defaultValue) {
+        String value = getCellValue(rowIndex, colIndex);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Значения DOM-листа POI
+     */
+    static SheetValues of(Sheet sheet) {
+        return (rowIndex, colIndex) -> ExcelParser.getCellValueAsString(sheet, rowIndex, colIndex);
+    }
+}
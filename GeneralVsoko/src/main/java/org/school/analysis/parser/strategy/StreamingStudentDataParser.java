@@ -0,0 +1,270 @@
+package org.school.analysis.parser.strategy;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.school.analysis.model.ScoreVector;
+import org.school.analysis.model.StudentResult;
+import org.school.analysis.parser.WorkbookSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+import static org.school.analysis.parser.strategy.StudentDataParser.FIRST_STUDENT_ROW;
+import static org.school.analysis.parser.strategy.StudentDataParser.HEADER_ROW_INDEX;
+
+/**
+ * Потоковый (SAX) парсер листов отчета на базе XSSF event model.
+ * Не строит объектную модель книги: строки листа "Сбор информации" обрабатываются
+ * по одной через переиспользуемый буфер, поэтому память на файл не зависит от числа строк.
+ * Структура колонок и разбор ученика выполняются общей логикой {@link StudentDataParser}.
+ */
+@Component
+public class StreamingStudentDataParser {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingStudentDataParser.class);
+
+    private final StudentDataParser studentDataParser;
+
+    public StreamingStudentDataParser(StudentDataParser studentDataParser) {
+        this.studentDataParser = studentDataParser;
+    }
+
+    /**
+     * Чтение первых maxRows строк листа в компактную структуру значений
+     * (используется для небольшого листа "Информация")
+     */
+    public SheetValues readSheetValues(WorkbookSession session, String sheetName, int maxRows) throws IOException {
+        Map<Integer, Map<Integer, String>> values = new HashMap<>();
+
+        boolean found = processSheet(session, sheetName, new RowCollectingHandler() {
+            @Override
+            protected void onRow(int rowNum, String[] rowValues, int length) {
+                if (rowNum >= maxRows) {
+                    return;
+                }
+                Map<Integer, String> row = new HashMap<>();
+                for (int colIdx = 0; colIdx < length; colIdx++) {
+                    if (rowValues[colIdx] != null) {
+                        row.put(colIdx, rowValues[colIdx]);
+                    }
+                }
+                values.put(rowNum, row);
+            }
+        });
+
+        if (!found) {
+            return null;
+        }
+        return (rowIndex, colIndex) -> values.getOrDefault(rowIndex, Map.of()).get(colIndex);
+    }
+
+    /**
+     * Потоковый парсинг данных учеников с листа "Сбор информации".
+     * Результат совпадает с {@link StudentDataParser#parseStudentData}.
+     */
+    public List<StudentResult> parseStudentData(WorkbookSession session,
+                                                String sheetName,
+                                                ScoreVector maxScores,
+                                                String subject,
+                                                String className) throws IOException {
+        List<StudentResult> results = new ArrayList<>();
+
+        if (maxScores.isEmpty()) {
+            log.error("Нет данных о максимальных баллов для предмета {}. Невозможно парсить учеников.", subject);
+            return results;
+        }
+
+        log.debug("Потоковый парсинг учеников для предмета: {}, класс: {}", subject, className);
+
+        StudentRowsHandler handler = new StudentRowsHandler(maxScores, subject, className, results);
+        if (!processSheet(session, sheetName, handler)) {
+            log.error("Лист '{}' не найден", sheetName);
+            return results;
+        }
+
+        log.info("Найдено {} учеников для предмета {} (потоковый режим)", results.size(), subject);
+        return results;
+    }
+
+    /**
+     * Прогон SAX-обработчика по листу с указанным именем
+     *
+     * @return false, если лист не найден
+     */
+    private boolean processSheet(WorkbookSession session, String sheetName,
+                                 XSSFSheetXMLHandler.SheetContentsHandler handler) throws IOException {
+        try {
+            XSSFReader.SheetIterator sheets = session.getSheetIterator();
+            while (sheets.hasNext()) {
+                try (InputStream sheetStream = sheets.next()) {
+                    if (!sheetName.equals(sheets.getSheetName())) {
+                        continue;
+                    }
+
+                    XMLReader xmlReader = XMLHelper.newXMLReader();
+                    xmlReader.setContentHandler(new XSSFSheetXMLHandler(
+                            session.getStyles(), session.getSharedStrings(), handler,
+                            new DomCompatibleDataFormatter(), false));
+                    xmlReader.parse(new InputSource(sheetStream));
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Ошибка потокового чтения листа '" + sheetName + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Индекс колонки из ссылки вида "AB12"
+     */
+    private static int columnIndex(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * Базовый обработчик: собирает значения строки в переиспользуемый буфер
+     */
+    private abstract static class RowCollectingHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private String[] rowValues = new String[64];
+        private int rowLength;
+        private int lastColumn;
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(rowValues, 0, rowLength, null);
+            rowLength = 0;
+            lastColumn = -1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            onRow(rowNum, rowValues, rowLength);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int colIdx = cellReference != null ? columnIndex(cellReference) : lastColumn + 1;
+            lastColumn = colIdx;
+            if (colIdx < 0 || formattedValue == null) {
+                return;
+            }
+            if (colIdx >= rowValues.length) {
+                rowValues = Arrays.copyOf(rowValues, Math.max(colIdx + 1, rowValues.length * 2));
+            }
+            rowValues[colIdx] = formattedValue.trim();
+            rowLength = Math.max(rowLength, colIdx + 1);
+        }
+
+        protected abstract void onRow(int rowNum, String[] rowValues, int length);
+    }
+
+    /**
+     * Обработчик листа "Сбор информации": заголовки -> структура колонок -> ученики
+     */
+    private final class StudentRowsHandler extends RowCollectingHandler {
+        private final ScoreVector maxScores;
+        private final String subject;
+        private final String className;
+        private final List<StudentResult> results;
+
+        private final List<List<String>> headerRows = new ArrayList<>();
+        private StudentDataParser.ColumnStructure columnStructure;
+        private int[] maxScoreByTask;
+        private boolean structureResolved;
+
+        StudentRowsHandler(ScoreVector maxScores, String subject, String className,
+                           List<StudentResult> results) {
+            this.maxScores = maxScores;
+            this.subject = subject;
+            this.className = className;
+            this.results = results;
+            for (int i = 0; i <= HEADER_ROW_INDEX; i++) {
+                headerRows.add(new ArrayList<>());
+            }
+        }
+
+        @Override
+        protected void onRow(int rowNum, String[] rowValues, int length) {
+            if (rowNum <= HEADER_ROW_INDEX) {
+                List<String> header = headerRows.get(rowNum);
+                header.clear();
+                header.addAll(Arrays.asList(rowValues).subList(0, length));
+                return;
+            }
+
+            if (rowNum < FIRST_STUDENT_ROW || !resolveStructure()) {
+                return;
+            }
+
+            StudentResult result = studentDataParser.parseStudentRow(
+                    StudentRowValues.of(rowValues, length), maxScoreByTask, columnStructure,
+                    subject, className, rowNum);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+
+        private boolean resolveStructure() {
+            if (!structureResolved) {
+                structureResolved = true;
+                if (headerRows.get(HEADER_ROW_INDEX).isEmpty()) {
+                    log.error("Не найдена строка с заголовками заданий (строка {})", HEADER_ROW_INDEX + 1);
+                } else {
+                    columnStructure = studentDataParser.resolveColumnStructure(
+                            headerRows, maxScores.getTaskCount(), subject, className);
+                    if (columnStructure.isValid()) {
+                        studentDataParser.logColumnStructure(columnStructure);
+                        maxScoreByTask = studentDataParser.toMaxScoreArray(maxScores, columnStructure);
+                    } else {
+                        log.error("Не удалось определить структуру колонок для файла");
+                        columnStructure = null;
+                    }
+                }
+            }
+            return columnStructure != null;
+        }
+    }
+
+    /**
+     * Форматирование числовых ячеек так же, как {@code ExcelParser.getCellValueAsString}
+     * в DOM-режиме: даты в ISO, целые без ".0", дробные через String.valueOf
+     */
+    private static final class DomCompatibleDataFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString,
+                                            boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing)
+                        .toLocalDate()
+                        .format(DateTimeFormatter.ISO_LOCAL_DATE);
+            }
+            if (value == Math.floor(value) && !Double.isInfinite(value)) {
+                return String.valueOf((int) value);
+            }
+            String str = String.valueOf(value);
+            return str.endsWith(".0") ? str.substring(0, str.length() - 2) : str;
+        }
+    }
+}
@@ -3,12 +3,16 @@ package org.school.analysis.parser.strategy;
 import org.apache.poi.ss.usermodel.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.school.analysis.model.ScoreVector;
 import org.school.analysis.model.StudentResult;
 import org.school.analysis.util.ExcelParser;
-import org.school.analysis.util.JsonScoreUtils;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.school.analysis.config.AppConfig.COLUMN_STRUCTURE_CACHE_SIZE;
 
 @Component
 public class StudentDataParser {
@@ -16,18 +20,23 @@ public class StudentDataParser {
     private static final Logger log = LoggerFactory.getLogger(StudentDataParser.class);
 
     // Константы для индексов колонок (на основе структуры файла)
-    private static final int COL_FIO = 1;           // Колонка B - ФИО
-    private static final int COL_PRESENCE = 2;      // Колонка C - Присутствие
-    private static final int COL_VARIANT = 3;       // Колонка D - Вариант
-    private static final int HEADER_ROW_INDEX = 1;  // Строка с номерами заданий (вторая строка)
-    private static final int FIRST_STUDENT_ROW = 3; // Первая строка с данными студента
+    static final int COL_FIO = 1;           // Колонка B - ФИО
+    static final int COL_PRESENCE = 2;      // Колонка C - Присутствие
+    static final int COL_VARIANT = 3;       // Колонка D - Вариант
+    static final int HEADER_ROW_INDEX = 1;  // Строка с номерами заданий (вторая строка)
+    static final int FIRST_STUDENT_ROW = 3; // Первая строка с данными студента
     private static final int MAX_NUMBER_TEST = 100;  // Максимальное количество заданий в тесте
 
+    // Структуры колонок уже встречавшихся шаблонов (заголовки + ожидаемое число заданий)
+    private final Map<HeaderFingerprint, ColumnStructure> columnStructureCache = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
     /**
      * Парсинг данных учеников с листа "Сбор информации"
      */
     public List<StudentResult> parseStudentData(Sheet dataSheet,
-                                                Map<Integer, Integer> maxScores,
+                                                ScoreVector maxScores,
                                                 String subject,
                                                 String className) {
         List<StudentResult> results = new ArrayList<>();
@@ -39,7 +48,7 @@ public class StudentDataParser {
 
         log.debug("Парсинг учеников для предмета: {}, класс: {}", subject, className);
         log.debug("Всего строк в листе: {}", dataSheet.getLastRowNum() + 1);
-        log.debug("Ожидаемое количество заданий: {}", maxScores.size());
+        log.debug("Ожидаемое количество заданий: {}", maxScores.getTaskCount());
 
         // 1. Определяем структуру колонок
         Row headerRow = dataSheet.getRow(HEADER_ROW_INDEX);
@@ -49,17 +58,15 @@ public class StudentDataParser {
         }
 
         // 2. Анализируем структуру колонок
-        ColumnStructure columnStructure = analyzeColumnStructure(headerRow, maxScores.size(), subject, className);
+        ColumnStructure columnStructure = resolveColumnStructure(
+                readHeaderRows(dataSheet), maxScores.getTaskCount(), subject, className);
         if (!columnStructure.isValid()) {
             log.error("Не удалось определить структуру колонок для файла");
             return results;
         }
 
-        log.info("Структура файла: задания [{}-{}] ({} заданий), Итог в колонке {}",
-                columnStructure.firstTaskColumn,
-                columnStructure.lastTaskColumn,
-                columnStructure.getTaskCount(),
-                columnStructure.totalScoreColumn);
+        logColumnStructure(columnStructure);
+        int[] maxScoreByTask = toMaxScoreArray(maxScores, columnStructure);
 
         // 3. Парсим студентов
         for (int rowIdx = FIRST_STUDENT_ROW; rowIdx <= dataSheet.getLastRowNum(); rowIdx++) {
@@ -68,7 +75,7 @@ public class StudentDataParser {
                 continue;
             }
 
-            StudentResult result = parseStudentRow(row, maxScores, columnStructure,
+            StudentResult result = parseStudentRow(StudentRowValues.of(row), maxScoreByTask, columnStructure,
                     subject, className, rowIdx);
 
             if (result != null) {
@@ -81,24 +88,83 @@ public class StudentDataParser {
     }
 
     /**
-     * Анализ структуры колонок файла
+     * Значения заголовочных строк (0..HEADER_ROW_INDEX) DOM-листа
+     */
+    private List<List<String>> readHeaderRows(Sheet sheet) {
+        List<List<String>> headerRows = new ArrayList<>(HEADER_ROW_INDEX + 1);
+        for (int rowIdx = 0; rowIdx <= HEADER_ROW_INDEX; rowIdx++) {
+            Row row = sheet.getRow(rowIdx);
+            List<String> values = new ArrayList<>();
+            if (row != null) {
+                for (int colIdx = 0; colIdx < row.getLastCellNum(); colIdx++) {
+                    values.add(ExcelParser.getCellValueAsString(row.getCell(colIdx)));
+                }
+            }
+            headerRows.add(values);
+        }
+        return headerRows;
+    }
+
+    void logColumnStructure(ColumnStructure columnStructure) {
+        log.info("Структура файла: задания [{}-{}] ({} заданий), Итог в колонке {}",
+                columnStructure.firstTaskColumn,
+                columnStructure.lastTaskColumn,
+                columnStructure.getTaskCount(),
+                columnStructure.totalScoreColumn);
+    }
+
+    /**
+     * Структура колонок с учетом кэша шаблонов.
+     * Почти все файлы сделаны по нескольким шаблонам, поэтому полный анализ заголовков
+     * выполняется только для шаблона, который еще не встречался.
+     */
+    ColumnStructure resolveColumnStructure(List<List<String>> headerRows, int expectedTaskCount,
+                                           String subject,
+                                           String className) {
+        HeaderFingerprint fingerprint = HeaderFingerprint.of(headerRows, expectedTaskCount);
+
+        ColumnStructure cached = columnStructureCache.get(fingerprint);
+        if (cached != null) {
+            long hits = cacheHits.incrementAndGet();
+            log.debug("Структура колонок взята из кэша шаблонов (попаданий: {}, промахов: {})",
+                    hits, cacheMisses.get());
+            if (cached.isValid() && cached.detectedTaskCount != expectedTaskCount) {
+                log.warn("⚠️ ВНИМАНИЕ: Количество заданий в файле ({}) не совпадает с ожидаемым ({})" +
+                                " по предмету в классе {} {}",
+                        cached.detectedTaskCount, expectedTaskCount, subject, className);
+            }
+            return cached;
+        }
+
+        cacheMisses.incrementAndGet();
+        ColumnStructure structure = analyzeColumnStructure(headerRows, expectedTaskCount, subject, className);
+
+        if (columnStructureCache.size() >= COLUMN_STRUCTURE_CACHE_SIZE) {
+            // Шаблонов обычно единицы - переполнение означает поток нестандартных файлов
+            columnStructureCache.clear();
+        }
+        columnStructureCache.put(fingerprint, structure);
+        return structure;
+    }
+
+    /**
+     * Анализ структуры колонок файла.
+     * headerRows - значения строк 0..HEADER_ROW_INDEX (индекс в списке = индекс колонки)
      */
-    private ColumnStructure analyzeColumnStructure(Row headerRow, int expectedTaskCount,
-                                                   String subject,
-                                                   String className) {
+    ColumnStructure analyzeColumnStructure(List<List<String>> headerRows, int expectedTaskCount,
+                                           String subject,
+                                           String className) {
         ColumnStructure structure = new ColumnStructure();
 
-        Sheet sheet = headerRow.getSheet();
+        List<String> headerRow = headerRows.get(HEADER_ROW_INDEX);
 
         // Ищем "Итог" во всех строках от 0 до HEADER_ROW_INDEX
         boolean found = false;
         for (int rowIdx = 0; rowIdx <= HEADER_ROW_INDEX && !found; rowIdx++) {
-            Row row = sheet.getRow(rowIdx);
-            if (row == null) continue;
+            List<String> row = headerRows.get(rowIdx);
 
-            for (int colIdx = 0; colIdx < row.getLastCellNum(); colIdx++) {
-                Cell cell = row.getCell(colIdx);
-                String cellValue = ExcelParser.getCellValueAsString(cell);
+            for (int colIdx = 0; colIdx < row.size(); colIdx++) {
+                String cellValue = row.get(colIdx);
 
                 if (cellValue != null &&
                         (cellValue.equalsIgnoreCase("Итог") ||
@@ -114,7 +180,7 @@ public class StudentDataParser {
 
         // Если не нашли, используем последнюю колонку заголовочной строки
         if (!found) {
-            structure.totalScoreColumn = headerRow.getLastCellNum() - 1;
+            structure.totalScoreColumn = headerRow.size() - 1;
             log.warn("Не найдена колонка 'Итог', используем последнюю колонку {} как итоговую" +
                             " предмет класс {} {}",
                     structure.totalScoreColumn, subject, className);
@@ -122,9 +188,8 @@ public class StudentDataParser {
 
         // 2. Ищем начало заданий (первая колонка с номером задания)
         // Начинаем поиск с колонки D (после варианта)
-        for (int colIdx = COL_VARIANT + 1; colIdx < structure.totalScoreColumn; colIdx++) {
-            Cell cell = headerRow.getCell(colIdx);
-            String cellValue = ExcelParser.getCellValueAsString(cell);
+        for (int colIdx = COL_VARIANT + 1; colIdx < structure.totalScoreColumn && colIdx < headerRow.size(); colIdx++) {
+            String cellValue = headerRow.get(colIdx);
 
             if (isTaskNumber(cellValue)) {
                 structure.firstTaskColumn = colIdx;
@@ -165,7 +230,7 @@ public class StudentDataParser {
     }
 
     /**
-     * Проверяет, является ли строка номером задания
+     * Проверяет, является ли строка номером задания (число от 0 до 100, например "7" или "7.")
      */
     private boolean isTaskNumber(String value) {
         if (value == null || value.trim().isEmpty()) {
@@ -183,32 +248,48 @@ public class StudentDataParser {
             return false;
         }
 
-        // Пробуем распарсить как число
-        try {
-            // Убираем возможные точки в конце (например, "1.")
-            if (value.endsWith(".")) {
-                value = value.substring(0, value.length() - 1);
+        // Разбор числа без исключений; точка в конце допускается ("1.")
+        int end = value.endsWith(".") ? value.length() - 1 : value.length();
+        int start = value.charAt(0) == '+' ? 1 : 0;
+        int separator = -1;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '.' && separator < 0) {
+                separator = i;
+            } else if (c < '0' || c > '9') {
+                return false;
             }
+        }
 
-            double num = Double.parseDouble(value);
-            // Номер задания должен быть положительным числом
-            return num > 0 && num <= 100; // Максимум 100 заданий
-        } catch (NumberFormatException e) {
+        int wholeEnd = separator >= 0 ? separator : end;
+        if (wholeEnd == start && (separator < 0 || separator == end - 1)) {
             return false;
         }
+
+        int whole = 0;
+        for (int i = start; i < wholeEnd && whole <= MAX_NUMBER_TEST; i++) {
+            whole = whole * 10 + (value.charAt(i) - '0');
+        }
+        boolean hasFraction = false;
+        for (int i = wholeEnd + 1; i < end && !hasFraction; i++) {
+            hasFraction = value.charAt(i) != '0';
+        }
+
+        // Номер задания должен быть положительным числом, максимум 100 заданий
+        return (whole > 0 || hasFraction) && (whole < MAX_NUMBER_TEST || (whole == MAX_NUMBER_TEST && !hasFraction));
     }
 
     /**
      * Парсинг одной строки с данными ученика
      */
-    private StudentResult parseStudentRow(Row row,
-                                          Map<Integer, Integer> maxScores,
-                                          ColumnStructure columnStructure,
-                                          String subject,
-                                          String className,
-                                          int rowIndex) {
+    StudentResult parseStudentRow(StudentRowValues row,
+                                  int[] maxScoreByTask,
+                                  ColumnStructure columnStructure,
+                                  String subject,
+                                  String className,
+                                  int rowIndex) {
         // 1. ФИО (колонка B)
-        String fio = ExcelParser.getCellValueAsString(row.getCell(COL_FIO));
+        String fio = row.getString(COL_FIO);
         if (fio == null || fio.trim().isEmpty() || fio.equals("[ПУСТО]")) {
             log.debug("Строка {}: ФИО пустое или '[ПУСТО]'", rowIndex + 1);
             return null;
@@ -216,7 +297,7 @@ public class StudentDataParser {
         fio = fio.trim();
 
         // 2. Присутствие (колонка C) - исходное значение
-        String presence = ExcelParser.getCellValueAsString(row.getCell(COL_PRESENCE));
+        String presence = row.getString(COL_PRESENCE);
         if (presence == null || presence.trim().isEmpty()) {
             presence = "Не указано";
         } else {
@@ -224,7 +305,7 @@ public class StudentDataParser {
         }
 
         // 3. Вариант (колонка D)
-        String variant = ExcelParser.getCellValueAsString(row.getCell(COL_VARIANT));
+        String variant = row.getString(COL_VARIANT);
         if (variant == null) {
             variant = "";
         } else {
@@ -232,12 +313,16 @@ public class StudentDataParser {
         }
 
         // 4. Парсинг баллов за задания
-        Map<Integer, Integer> taskScores = parseTaskScores(row, maxScores, columnStructure, rowIndex);
+        int[] scores = parseTaskScores(row, maxScoreByTask, columnStructure, rowIndex);
+        boolean hasAnyScore = false;
+        for (int score : scores) {
+            hasAnyScore |= score > 0;
+        }
+        ScoreVector scoreVector = ScoreVector.of(scores);
+        int calculatedTotal = scoreVector.getTotal();
 
         // 5. Автоматическое определение присутствия на основе баллов
         if ("Не указано".equals(presence) || presence.isEmpty()) {
-            boolean hasAnyScore = taskScores.values().stream()
-                    .anyMatch(score -> score != null && score > 0);
 
             presence = hasAnyScore ? "Был" : "Не был";
 
@@ -255,15 +340,14 @@ public class StudentDataParser {
         result.setVariant(variant);
         result.setSubject(subject);
         result.setClassName(className);
-        result.setTaskScores(taskScores);
+        result.setScoreVector(scoreVector);
 
         // 8. Устанавливаем итоговый балл (приоритет - колонка Итог)
         if (totalScore != null) {
             result.setTotalScore(totalScore);
 
             // Валидация: сравниваем с суммой баллов за задания
-            int calculatedTotal = JsonScoreUtils.calculateTotalScore(taskScores);
-            if (!totalScore.equals(calculatedTotal)) {
+            if (totalScore != calculatedTotal) {
                 double difference = Math.abs(totalScore - calculatedTotal);
                 log.warn("Строка {}: Студент {} - расхождение баллов: Итог={}, сумма={} (разница={})" +
                                 "предмет{}  класс{}",
@@ -276,7 +360,7 @@ public class StudentDataParser {
             }
         } else {
             // Если не удалось получить из колонки Итог, расчитываем
-            result.setTotalScore(JsonScoreUtils.calculateTotalScore(taskScores));
+            result.setTotalScore(calculatedTotal);
             log.debug("Строка {}: Студент {} - итоговый балл расчитан", rowIndex + 1, fio);
         }
 
@@ -284,56 +368,56 @@ public class StudentDataParser {
     }
 
     /**
-     * Парсинг баллов за задания
+     * Максимальные баллы по порядку заданий (индекс = номер задания - 1, -1 - максимум неизвестен).
+     * Строится один раз на файл, чтобы не распаковывать вектор в цикле по ученикам.
+     * Задание без максимума (0 в векторе) считается заданием с неизвестным максимумом.
      */
-    private Map<Integer, Integer> parseTaskScores(Row row,
-                                                  Map<Integer, Integer> maxScores,
-                                                  ColumnStructure columnStructure,
-                                                  int rowIndex) {
-        Map<Integer, Integer> scores = new HashMap<>();
-
-        int taskNumber = 1;
-        int parsedColumns = 0;
-
-        // Парсим все задания от firstTaskColumn до lastTaskColumn
-        for (int colIdx = columnStructure.firstTaskColumn;
-             colIdx <= columnStructure.lastTaskColumn;
-             colIdx++) {
-
-            Cell cell = row.getCell(colIdx);
-            Integer score = ExcelParser.getCellValueAsInteger(cell);
-
-            if (score == null) {
-                score = 0; // Если ячейка пустая
-            }
-
-            // Валидация: не превышает ли балл максимум (если информация есть)
-            if (maxScores.containsKey(taskNumber)) {
-                Integer maxForTask = maxScores.get(taskNumber);
-                if (maxForTask != null && score > maxForTask) {
-                    log.debug("Строка {}: Задание №{}: балл {} > максимум {}. Корректируем.",
-                            rowIndex + 1, taskNumber, score, maxForTask);
-                    score = maxForTask;
-                }
+    int[] toMaxScoreArray(ScoreVector maxScores, ColumnStructure columnStructure) {
+        int[] maxScoreByTask = new int[Math.min(columnStructure.detectedTaskCount, MAX_NUMBER_TEST)];
+        Arrays.fill(maxScoreByTask, -1);
+        maxScores.forEach((taskNumber, maxScore) -> {
+            if (maxScore > 0 && taskNumber <= maxScoreByTask.length) {
+                maxScoreByTask[taskNumber - 1] = maxScore;
             }
+        });
+        return maxScoreByTask;
+    }
 
-            scores.put(taskNumber, score);
-            taskNumber++;
-            parsedColumns++;
+    /**
+     * Парсинг баллов за задания в примитивный массив (индекс = номер задания - 1)
+     */
+    private int[] parseTaskScores(StudentRowValues row,
+                                  int[] maxScoreByTask,
+                                  ColumnStructure columnStructure,
+                                  int rowIndex) {
+        int taskCount = maxScoreByTask.length;
+        int[] scores = new int[taskCount];
+
+        // Защита от слишком большого количества заданий
+        if (columnStructure.detectedTaskCount > MAX_NUMBER_TEST) {
+            log.error("Превышено максимальное количество заданий MAX_NUMBER_TEST = {}", MAX_NUMBER_TEST);
+        }
 
-            // Защита от слишком большого количества заданий
-            if (taskNumber > MAX_NUMBER_TEST) {
-                log.error("Превышено максимальное количество заданий MAX_NUMBER_TEST = (MAX_NUMBER_TEST)");
-                break;
+        // Парсим все задания от firstTaskColumn до lastTaskColumn
+        for (int task = 0; task < taskCount; task++) {
+            int value = row.getIntOrSentinel(columnStructure.firstTaskColumn + task);
+            int max = maxScoreByTask[task];
+
+            // Пустая ячейка - 0; балл выше максимума (если он известен) корректируем
+            int score = ExcelParser.clampScore(value, max);
+            if (score != value && value != ExcelParser.NO_INT) {
+                log.debug("Строка {}: Задание №{}: балл {} > максимум {}. Корректируем.",
+                        rowIndex + 1, task + 1, value, max);
             }
+            scores[task] = score;
         }
 
-        log.debug("Строка {}: Распарсено {} заданий", rowIndex + 1, parsedColumns);
+        log.debug("Строка {}: Распарсено {} заданий", rowIndex + 1, taskCount);
 
         // Проверяем, что распарсили все ожидаемые задания
-        if (parsedColumns != columnStructure.detectedTaskCount) {
+        if (taskCount != columnStructure.detectedTaskCount) {
             log.warn("Строка {}: Распарсено {} заданий, но ожидалось {}",
-                    rowIndex + 1, parsedColumns, columnStructure.detectedTaskCount);
+                    rowIndex + 1, taskCount, columnStructure.detectedTaskCount);
         }
 
         return scores;
@@ -342,23 +426,58 @@ public class StudentDataParser {
     /**
      * Парсинг итогового балла из колонки Итог
      */
-    private Integer parseTotalScore(Row row, int totalScoreColumn, int rowIndex) {
-        if (totalScoreColumn < 0 || totalScoreColumn >= row.getLastCellNum()) {
+    private Integer parseTotalScore(StudentRowValues row, int totalScoreColumn, int rowIndex) {
+        if (totalScoreColumn < 0) {
             return null;
         }
 
-        Cell totalCell = row.getCell(totalScoreColumn);
-        if (totalCell == null) {
-            return null;
+        int value = row.getIntOrSentinel(totalScoreColumn);
+        return value != ExcelParser.NO_INT ? value : null;
+    }
+
+    /**
+     * Отпечаток шаблона: значения заголовочных строк и ожидаемое число заданий.
+     * Хеш считается один раз; equals сравнивает значения, поэтому коллизии хеша не дают чужую структуру.
+     */
+    private static final class HeaderFingerprint {
+        private final List<List<String>> headerRows;
+        private final int expectedTaskCount;
+        private final int hash;
+
+        private HeaderFingerprint(List<List<String>> headerRows, int expectedTaskCount) {
+            this.headerRows = headerRows;
+            this.expectedTaskCount = expectedTaskCount;
+            this.hash = 31 * headerRows.hashCode() + expectedTaskCount;
+        }
+
+        static HeaderFingerprint of(List<List<String>> headerRows, int expectedTaskCount) {
+            List<List<String>> copy = new ArrayList<>(headerRows.size());
+            for (List<String> row : headerRows) {
+                // Длина строки тоже часть отпечатка: без "Итог" итоговой считается последняя колонка
+                copy.add(Collections.unmodifiableList(new ArrayList<>(row)));
+            }
+            return new HeaderFingerprint(Collections.unmodifiableList(copy), expectedTaskCount);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof HeaderFingerprint that)) return false;
+            return hash == that.hash
+                    && expectedTaskCount == that.expectedTaskCount
+                    && headerRows.equals(that.headerRows);
         }
 
-        return ExcelParser.getCellValueAsInteger(totalCell);
+        @Override
+        public int hashCode() {
+            return hash;
+        }
     }
 
     /**
      * Класс для хранения информации о структуре колонок
      */
-    private static class ColumnStructure {
+    static class ColumnStructure {
         int firstTaskColumn = -1;      // Первая колонка с заданиями
         int lastTaskColumn = -1;       // Последняя колонка с заданиями
         int totalScoreColumn = -1;     // Колонка с итоговым баллом
@@ -0,0 +1,48 @@
+package org.school.analysis.parser.strategy;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.school.analysis.util.ExcelParser;
+
+/**
+ * Значения одной строки листа "Сбор информации".
+ * Позволяет DOM и потоковому парсерам использовать общую логику разбора ученика.
+ */
+interface StudentRowValues {
+
+    /**
+     * Строковое значение ячейки (null, если ячейка пустая или отсутствует)
+     */
+    String getString(int columnIndex);
+
+    /**
+     * Целочисленное значение ячейки без упаковки и исключений
+     * ({@link ExcelParser#NO_INT}, если значение не число)
+     */
+    default int getIntOrSentinel(int columnIndex) {
+        return ExcelParser.parseIntOrSentinel(getString(columnIndex));
+    }
+
+    /**
+     * Строка DOM-модели POI: числа читаются прямо из ячейки, без промежуточной строки
+     */
+    static StudentRowValues of(Row row) {
+        return new StudentRowValues() {
+            @Override
+            public String getString(int columnIndex) {
+                return ExcelParser.getCellValueAsString(row.getCell(columnIndex));
+            }
+
+            @Override
+            public int getIntOrSentinel(int columnIndex) {
+                return ExcelParser.readIntOrSentinel(row.getCell(columnIndex));
+            }
+        };
+    }
+
+    /**
+     * Строка, собранная потоковым парсером (индекс массива = индекс колонки)
+     */
+    static StudentRowValues of(String[] values, int length) {
+        return columnIndex -> columnIndex >= 0 && columnIndex < length ? values[columnIndex] : null;
+    }
+}
@@ -0,0 +1,294 @@
+package org.school.analysis.pipeline;
+
+import org.school.analysis.model.ParseResult;
+import org.school.analysis.model.ReportFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Конвейер загрузки отчетов: парсинг → проверка → сохранение → перемещение.
+ * Стадии связаны ограниченными блокирующими очередями: пока файл N сохраняется в БД,
+ * файл N+1 уже парсится, а файл N-1 перемещается в папку предмета.
+ * У каждой стадии свое число обработчиков; заполненная очередь притормаживает
+ * предыдущую стадию, поэтому в памяти одновременно находится лишь несколько результатов парсинга.
+ */
+public class IngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    // Маркер конца потока файлов (по одному на каждый обработчик стадии)
+    private static final Object END = new Object();
+
+    /**
+     * Обработчик стадии после парсинга.
+     * false - файл отбракован (статус и причину выставляет сам обработчик).
+     */
+    @FunctionalInterface
+    public interface Step {
+        boolean process(ParseResult parseResult) throws Exception;
+    }
+
+    /**
+     * Итог прогона: файлы, прошедшие все стадии, и отбракованные файлы
+     */
+    public static class Result {
+        private final List<ReportFile> completed = Collections.synchronizedList(new ArrayList<>());
+        private final List<ParseResult> failed = Collections.synchronizedList(new ArrayList<>());
+        private List<StageMetrics> stageMetrics = List.of();
+
+        public List<ReportFile> getCompleted() {
+            return completed;
+        }
+
+        /**
+         * Отбракованные файлы (success = false, причина в errorMessage)
+         */
+        public List<ParseResult> getFailed() {
+            return failed;
+        }
+
+        public List<StageMetrics> getStageMetrics() {
+            return stageMetrics;
+        }
+    }
+
+    private record StageDefinition(String name, int workers, Step step) {
+    }
+
+    private final Function<ReportFile, ParseResult> parser;
+    private final int parseWorkers;
+    private final List<StageDefinition> stages;
+    private final int queueCapacity;
+    private final long metricsLogIntervalSeconds;
+
+    private IngestionPipeline(Builder builder) {
+        this.parser = builder.parser;
+        this.parseWorkers = builder.parseWorkers;
+        this.stages = List.copyOf(builder.stages);
+        this.queueCapacity = builder.queueCapacity;
+        this.metricsLogIntervalSeconds = builder.metricsLogIntervalSeconds;
+    }
+
+    public static Builder builder(Function<ReportFile, ParseResult> parser, int parseWorkers) {
+        return new Builder(parser, parseWorkers);
+    }
+
+    /**
+     * Прогнать файлы через все стадии (блокирует до завершения последней стадии)
+     */
+    public Result run(List<ReportFile> reportFiles) {
+        Result result = new Result();
+        if (reportFiles.isEmpty()) {
+            return result;
+        }
+
+        List<RunningStage> running = new ArrayList<>();
+        running.add(new RunningStage("Парсинг", parseWorkers, null));
+        for (StageDefinition definition : stages) {
+            running.add(new RunningStage(definition.name(), definition.workers(), definition.step()));
+        }
+        for (int i = 0; i < running.size() - 1; i++) {
+            running.get(i).next = running.get(i + 1);
+        }
+        result.stageMetrics = running.stream().map(stage -> stage.metrics).toList();
+
+        int totalWorkers = running.stream().mapToInt(stage -> stage.workers).sum();
+        CountDownLatch finished = new CountDownLatch(totalWorkers);
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (RunningStage stage : running) {
+                stage.metrics.start();
+                for (int i = 0; i < stage.workers; i++) {
+                    executor.submit(() -> {
+                        try {
+                            runWorker(stage, result);
+                        } finally {
+                            finished.countDown();
+                        }
+                    });
+                }
+            }
+
+            // Подача файлов: put() блокируется, пока стадия парсинга не разберет очередь
+            RunningStage first = running.get(0);
+            executor.submit(() -> {
+                for (ReportFile reportFile : reportFiles) {
+                    if (!first.offer(reportFile)) {
+                        return;
+                    }
+                }
+                first.signalEnd();
+            });
+
+            while (!finished.await(metricsLogIntervalSeconds, TimeUnit.SECONDS)) {
+                log.info("⏳ Конвейер: {}", result.stageMetrics);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Конвейер загрузки прерван");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("🏁 Конвейер завершен: {}", result.stageMetrics);
+        return result;
+    }
+
+    private void runWorker(RunningStage stage, Result result) {
+        try {
+            while (true) {
+                Object item = stage.input.take();
+                if (item == END) {
+                    break;
+                }
+
+                long start = System.nanoTime();
+                ParseResult output = stage.apply(item);
+                stage.metrics.recordItem(System.nanoTime() - start, output.isSuccess());
+
+                if (!output.isSuccess()) {
+                    result.failed.add(output);
+                } else if (stage.next != null) {
+                    if (!stage.next.offer(output)) {
+                        return;
+                    }
+                } else {
+                    result.completed.add(output.getReportFile());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Последний обработчик стадии закрывает вход следующей стадии
+            if (stage.activeWorkers.decrementAndGet() == 0) {
+                stage.metrics.finish();
+                if (stage.next != null) {
+                    stage.next.signalEnd();
+                }
+            }
+        }
+    }
+
+    /**
+     * Стадия во время прогона: входная очередь, обработчики и метрики
+     */
+    private final class RunningStage {
+        private final int workers;
+        private final Step step;
+        private final BlockingQueue<Object> input;
+        private final StageMetrics metrics;
+        private final AtomicInteger activeWorkers;
+        private RunningStage next;
+
+        RunningStage(String name, int workers, Step step) {
+            this.workers = Math.max(1, workers);
+            this.step = step;
+            this.input = new ArrayBlockingQueue<>(queueCapacity);
+            this.metrics = new StageMetrics(name, this.workers, input);
+            this.activeWorkers = new AtomicInteger(this.workers);
+        }
+
+        /**
+         * Результат стадии; ошибка превращается в отбракованный ParseResult.
+         * Успешный результат несет данные учеников дальше, отбракованный - только файл и причину.
+         */
+        ParseResult apply(Object item) {
+            if (step == null) {
+                ReportFile reportFile = (ReportFile) item;
+                try {
+                    return parser.apply(reportFile);
+                } catch (Exception e) {
+                    log.error("❌ Ошибка парсинга файла {}: {}", reportFile.getFileName(), e.getMessage());
+                    return ParseResult.error(reportFile, "Ошибка парсинга: " + e.getMessage());
+                }
+            }
+
+            ParseResult parseResult = (ParseResult) item;
+            ReportFile reportFile = parseResult.getReportFile();
+            try {
+                if (step.process(parseResult)) {
+                    return parseResult;
+                }
+            } catch (Exception e) {
+                log.error("❌ Стадия '{}' завершилась ошибкой для файла {}: {}",
+                        metrics.getStageName(), reportFile.getFileName(), e.getMessage());
+                if (reportFile.getErrorMessage() == null || reportFile.getErrorMessage().isBlank()) {
+                    reportFile.setErrorMessage(metrics.getStageName() + ": " + e.getMessage());
+                }
+            }
+
+            String reason = reportFile.getErrorMessage() != null && !reportFile.getErrorMessage().isBlank()
+                    ? reportFile.getErrorMessage()
+                    : "Файл отбракован на стадии '" + metrics.getStageName() + "'";
+            return ParseResult.error(reportFile, reason);
+        }
+
+        boolean offer(Object item) {
+            try {
+                input.put(item);
+                metrics.recordQueueDepth();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        void signalEnd() {
+            for (int i = 0; i < workers; i++) {
+                if (!offer(END)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public static class Builder {
+        private final Function<ReportFile, ParseResult> parser;
+        private final int parseWorkers;
+        private final List<StageDefinition> stages = new ArrayList<>();
+        private int queueCapacity = 8;
+        private long metricsLogIntervalSeconds = 10;
+
+        private Builder(Function<ReportFile, ParseResult> parser, int parseWorkers) {
+            this.parser = parser;
+            this.parseWorkers = parseWorkers;
+        }
+
+        /**
+         * Добавить стадию после парсинга (стадии выполняются в порядке добавления)
+         */
+        public Builder stage(String name, int workers, Step step) {
+            stages.add(new StageDefinition(name, workers, step));
+            return this;
+        }
+
+        /**
+         * Емкость очереди перед каждой стадией
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = Math.max(1, queueCapacity);
+            return this;
+        }
+
+        /**
+         * Как часто логировать состояние очередей, пока конвейер работает
+         */
+        public Builder metricsLogInterval(long seconds) {
+            this.metricsLogIntervalSeconds = Math.max(1, seconds);
+            return this;
+        }
+
+        public IngestionPipeline build() {
+            return new IngestionPipeline(this);
+        }
+    }
+}
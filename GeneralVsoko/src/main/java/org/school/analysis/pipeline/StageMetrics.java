@@ -0,0 +1,112 @@
+package org.school.analysis.pipeline;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Метрики одной стадии конвейера: глубина входной очереди, число обработанных
+ * и отбракованных файлов, занятость обработчиков и пропускная способность
+ */
+public class StageMetrics {
+
+    private final String stageName;
+    private final int workers;
+    private final BlockingQueue<?> inputQueue;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    private volatile long startNanos;
+    private volatile long finishNanos;
+
+    StageMetrics(String stageName, int workers, BlockingQueue<?> inputQueue) {
+        this.stageName = stageName;
+        this.workers = workers;
+        this.inputQueue = inputQueue;
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void finish() {
+        finishNanos = System.nanoTime();
+    }
+
+    void recordItem(long nanos, boolean success) {
+        busyNanos.addAndGet(nanos);
+        if (success) {
+            processed.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+
+    void recordQueueDepth() {
+        maxQueueDepth.accumulateAndGet(inputQueue.size(), Math::max);
+    }
+
+    public String getStageName() {
+        return stageName;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Текущее число файлов, ожидающих стадию
+     */
+    public int getQueueDepth() {
+        return inputQueue.size();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Суммарное время работы обработчиков стадии
+     */
+    public Duration getBusyTime() {
+        return Duration.ofNanos(busyNanos.get());
+    }
+
+    /**
+     * Время от запуска стадии до ее завершения (или до текущего момента)
+     */
+    public Duration getElapsedTime() {
+        if (startNanos == 0) {
+            return Duration.ZERO;
+        }
+        long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+        return Duration.ofNanos(end - startNanos);
+    }
+
+    /**
+     * Файлов в секунду (успешных и отбракованных)
+     */
+    public double getThroughputPerSecond() {
+        double seconds = getElapsedTime().toNanos() / 1_000_000_000.0;
+        return seconds > 0 ? (getProcessed() + getFailed()) / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[потоков=%d, очередь=%d (макс %d), готово=%d, отбраковано=%d, %.2f файл/с]",
+                stageName, workers, getQueueDepth(), getMaxQueueDepth(),
+                getProcessed(), getFailed(), getThroughputPerSecond());
+    }
+}
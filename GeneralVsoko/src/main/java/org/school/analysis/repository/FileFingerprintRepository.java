@@ -0,0 +1,18 @@
+package org.school.analysis.repository;
+
+import org.school.analysis.model.entity.FileFingerprintEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface FileFingerprintRepository extends JpaRepository<FileFingerprintEntity, UUID> {
+
+    /**
+     * Отпечатки для набора путей (один запрос на всю папку)
+     */
+    List<FileFingerprintEntity> findByFilePathIn(Collection<String> filePaths);
+}
@@ -1,23 +1,84 @@
 package org.school.analysis.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.school.analysis.model.ScoreVector;
 import org.school.analysis.model.entity.ReportFileEntity;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
+import static org.school.analysis.config.AppConfig.REPORT_QUERY_FETCH_SIZE;
+
 @Repository
 public interface ReportFileRepository extends
         JpaRepository<ReportFileEntity, UUID>,
-        JpaSpecificationExecutor<ReportFileEntity> {
+        JpaSpecificationExecutor<ReportFileEntity>,
+        ReportFileRepositoryCustom {
+
+    /**
+     * Строка сводки по тесту: строка report_files + статистика, рассчитанная при сохранении
+     */
+    interface TestSummaryRow {
+        UUID getId();
+        String getSchoolName();
+        String getSubject();
+        String getClassName();
+        LocalDate getTestDate();
+        String getTestType();
+        String getTeacher();
+        Integer getStudentCount();
+        Integer getTaskCount();
+        String getFileName();
+        String getAcademicYear();
+        String getMaxScoresJson();
+        ScoreVector getMaxScores();   // null - строка сохранена до появления max_scores
+        Integer getMaxTotalScore();   // null - статистика еще не рассчитана
+        Integer getPresentCount();
+        Integer getAbsentCount();
+        Double getAverageScore();     // null - нет присутствовавших
+    }
+
+    /**
+     * Сводка по тестам школы за учебный год одним запросом (дата теста по убыванию, предмет, класс)
+     */
+    @Query("""
+            SELECT r.id AS id, r.schoolName AS schoolName, r.subject AS subject, r.className AS className,
+                   r.testDate AS testDate, r.testType AS testType, r.teacher AS teacher,
+                   r.studentCount AS studentCount, r.taskCount AS taskCount, r.fileName AS fileName,
+                   r.academicYear AS academicYear, r.maxScoresJson AS maxScoresJson, r.maxScores AS maxScores,
+                   st.maxTotalScore AS maxTotalScore, st.presentCount AS presentCount,
+                   st.absentCount AS absentCount, st.averageScore AS averageScore
+            FROM ReportFileEntity r LEFT JOIN ReportFileStatsEntity st ON st.reportFileId = r.id
+            WHERE r.schoolName = :schoolName AND r.academicYear = :academicYear
+            ORDER BY r.testDate DESC, r.subject, r.className""")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + REPORT_QUERY_FETCH_SIZE)
+    })
+    List<TestSummaryRow> findTestSummaries(@Param("schoolName") String schoolName,
+                                           @Param("academicYear") String academicYear);
 
     // Используется в StudentResultRepositoryImpl
     boolean existsByFileHash(String fileHash);
 
+    /**
+     * Какие из переданных хешей уже есть в БД (одним запросом для всей папки)
+     */
+    @Query("SELECT r.fileHash FROM ReportFileEntity r WHERE r.fileHash IN :hashes")
+    Set<String> findExistingFileHashes(@Param("hashes") Collection<String> hashes);
+
     // Опционально, может пригодиться
     Optional<ReportFileEntity> findByFileHash(String fileHash);
 
@@ -0,0 +1,18 @@
+package org.school.analysis.repository;
+
+import org.school.analysis.model.entity.ReportFileEntity;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ReportFileRepositoryCustom {
+
+    /**
+     * Вставить файл отчета, если файла с таким file_hash еще нет (INSERT ... ON CONFLICT DO NOTHING).
+     * Проверка и вставка выполняются одним оператором, поэтому параллельные загрузчики
+     * не могут вставить один и тот же файл дважды.
+     *
+     * @return ID вставленной строки или пусто, если файл уже сохранен
+     */
+    Optional<UUID> insertIfAbsent(ReportFileEntity entity);
+}
@@ -0,0 +1,67 @@
+package org.school.analysis.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.school.analysis.model.entity.ReportFileEntity;
+import org.school.analysis.model.entity.ScoreVectorConverter;
+import org.school.analysis.util.UuidUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class ReportFileRepositoryCustomImpl implements ReportFileRepositoryCustom {
+
+    private static final String INSERT_IF_ABSENT_SQL = """
+            INSERT INTO report_files (id, file_path, file_name, file_hash, subject, class_name, status,
+                                      processed_at, error_message, student_count, test_date, teacher,
+                                      academic_year, school_name, task_count, test_type, comment,
+                                      max_scores_json, max_scores, created_at, updated_at)
+            VALUES (:id, :filePath, :fileName, :fileHash, :subject, :className, :status,
+                    :processedAt, :errorMessage, :studentCount, :testDate, :teacher,
+                    :academicYear, :schoolName, :taskCount, :testType, :comment,
+                    :maxScoresJson, CAST(:maxScores AS smallint[]), :createdAt, :updatedAt)
+            ON CONFLICT (file_hash) DO NOTHING
+            RETURNING id""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<UUID> insertIfAbsent(ReportFileEntity entity) {
+        LocalDateTime now = LocalDateTime.now();
+        UUID id = entity.getId() != null ? entity.getId() : UuidUtils.timeOrdered();
+
+        // Типы параметров указываются явно: иначе null (например, processed_at) уходит в БД как varchar
+        NativeQuery<UUID> query = entityManager.createNativeQuery(INSERT_IF_ABSENT_SQL, UUID.class)
+                .unwrap(NativeQuery.class);
+        query.setParameter("id", id, UUID.class);
+        query.setParameter("filePath", entity.getFilePath(), String.class);
+        query.setParameter("fileName", entity.getFileName(), String.class);
+        query.setParameter("fileHash", entity.getFileHash(), String.class);
+        query.setParameter("subject", entity.getSubject(), String.class);
+        query.setParameter("className", entity.getClassName(), String.class);
+        query.setParameter("status", entity.getStatus() != null ? entity.getStatus().name() : null, String.class);
+        query.setParameter("processedAt", entity.getProcessedAt(), LocalDateTime.class);
+        query.setParameter("errorMessage", entity.getErrorMessage(), String.class);
+        query.setParameter("studentCount", entity.getStudentCount(), Integer.class);
+        query.setParameter("testDate", entity.getTestDate(), LocalDate.class);
+        query.setParameter("teacher", entity.getTeacher(), String.class);
+        query.setParameter("academicYear", entity.getAcademicYear(), String.class);
+        query.setParameter("schoolName", entity.getSchoolName(), String.class);
+        query.setParameter("taskCount", entity.getTaskCount(), Integer.class);
+        query.setParameter("testType", entity.getTestType(), String.class);
+        query.setParameter("comment", entity.getComment(), String.class);
+        query.setParameter("maxScoresJson", entity.getMaxScoresJson(), String.class);
+        query.setParameter("maxScores", ScoreVectorConverter.toArrayLiteral(entity.getMaxScores()), String.class);
+        query.setParameter("createdAt", entity.getCreatedAt() != null ? entity.getCreatedAt() : now, LocalDateTime.class);
+        query.setParameter("updatedAt", now, LocalDateTime.class);
+
+        List<UUID> inserted = query.getResultList();
+        return inserted.stream().findFirst();
+    }
+}
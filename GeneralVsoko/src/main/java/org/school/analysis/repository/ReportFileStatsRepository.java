@@ -0,0 +1,29 @@
+package org.school.analysis.repository;
+
+import org.school.analysis.model.entity.ReportFileStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ReportFileStatsRepository extends JpaRepository<ReportFileStatsEntity, UUID> {
+
+    /**
+     * Файлы отчетов, для которых статистика еще не рассчитана (сохранены до появления таблицы)
+     */
+    @Query(value = """
+            SELECT r.id FROM report_files r
+            WHERE NOT EXISTS (SELECT 1 FROM report_file_stats st WHERE st.report_file_id = r.id)""",
+            nativeQuery = true)
+    List<UUID> findReportFileIdsWithoutStats();
+
+    /**
+     * Файлы со статистикой, еще не учтенные в stats_aggregates
+     */
+    @Query(value = "SELECT st.report_file_id FROM report_file_stats st WHERE st.aggregated IS NOT TRUE",
+            nativeQuery = true)
+    List<UUID> findReportFileIdsNotAggregated();
+}
@@ -0,0 +1,57 @@
+package org.school.analysis.repository;
+
+import jakarta.persistence.LockModeType;
+import org.school.analysis.model.StatsDimension;
+import org.school.analysis.model.entity.StatsAggregateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface StatsAggregateRepository extends JpaRepository<StatsAggregateEntity, UUID> {
+
+    /**
+     * Создать пустые строки агрегатов для заданий fromTask..toTask, которых еще нет
+     * (ON CONFLICT: параллельные сохранения не падают на уникальном ключе)
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO stats_aggregates (id, school_name, academic_year, dimension, dimension_key, task_number,
+                                          sample_count, mean, m2, updated_at)
+            SELECT gen_random_uuid(), :schoolName, :academicYear, :dimension, :dimensionKey, t, 0, 0, 0, now()
+            FROM generate_series(:fromTask, :toTask) AS t
+            ON CONFLICT (school_name, academic_year, dimension, dimension_key, task_number) DO NOTHING""",
+            nativeQuery = true)
+    int insertMissing(@Param("schoolName") String schoolName,
+                      @Param("academicYear") String academicYear,
+                      @Param("dimension") String dimension,
+                      @Param("dimensionKey") String dimensionKey,
+                      @Param("fromTask") int fromTask,
+                      @Param("toTask") int toTask);
+
+    /**
+     * Строки агрегатов разреза с блокировкой на запись до конца транзакции (по порядку заданий)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT a FROM StatsAggregateEntity a
+            WHERE a.schoolName = :schoolName AND a.academicYear = :academicYear
+              AND a.dimension = :dimension AND a.dimensionKey = :dimensionKey
+            ORDER BY a.taskNumber""")
+    List<StatsAggregateEntity> lockAggregates(@Param("schoolName") String schoolName,
+                                              @Param("academicYear") String academicYear,
+                                              @Param("dimension") StatsDimension dimension,
+                                              @Param("dimensionKey") String dimensionKey);
+
+    /**
+     * Все агрегаты разреза школы за год
+     */
+    List<StatsAggregateEntity> findBySchoolNameAndAcademicYearAndDimensionOrderByDimensionKeyAscTaskNumberAsc(
+            String schoolName, String academicYear, StatsDimension dimension);
+}
@@ -1,18 +1,61 @@
 package org.school.analysis.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.school.analysis.model.ScoreVector;
 import org.school.analysis.model.entity.StudentResultEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.UUID;
 
+import static org.school.analysis.config.AppConfig.REPORT_QUERY_FETCH_SIZE;
+
 @Repository
 public interface StudentResultRepository extends
         JpaRepository<StudentResultEntity, UUID>,
         JpaSpecificationExecutor<StudentResultEntity> {
 
+    /**
+     * Строка ученика для отчетов: только колонки, которые попадают в отчет
+     * (без сущности в контексте персистентности и без прокси reportFile)
+     */
+    interface StudentDetailRow {
+        UUID getReportFileId();
+        String getFio();
+        String getPresence();
+        String getVariant();
+        Integer getTotalScore();
+        Double getPercentageScore();
+        ScoreVector getTaskScores();      // null - массив еще не заполнен, баллы в taskScoresJson
+        String getTaskScoresJson();
+        String getAcademicYear();
+        String getSchoolName();
+    }
+
+    /**
+     * Строки учеников всех тестов школы за учебный год (для AnalyticsCube, только чтение).
+     * Условие на s.academicYear - ключ секционирования student_results: без него читаются все секции.
+     */
+    @Query("""
+            SELECT s.reportFile.id AS reportFileId, s.fio AS fio, s.presence AS presence, s.variant AS variant,
+                   s.totalScore AS totalScore, s.percentageScore AS percentageScore, s.taskScores AS taskScores,
+                   s.taskScoresJson AS taskScoresJson, s.academicYear AS academicYear, s.schoolName AS schoolName
+            FROM StudentResultEntity s
+            WHERE s.academicYear = :academicYear
+              AND s.reportFile.schoolName = :schoolName AND s.reportFile.academicYear = :academicYear""")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + REPORT_QUERY_FETCH_SIZE)
+    })
+    List<StudentDetailRow> findDetailRowsBySchoolAndYear(@Param("schoolName") String schoolName,
+                                                         @Param("academicYear") String academicYear);
+
     /**
      * Найти все результаты по ID файла отчета
      */
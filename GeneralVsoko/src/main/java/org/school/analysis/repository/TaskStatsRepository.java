@@ -0,0 +1,29 @@
+package org.school.analysis.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.school.analysis.model.entity.TaskStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TaskStatsRepository extends JpaRepository<TaskStatsEntity, UUID> {
+
+    /**
+     * Статистика заданий всех тестов школы за учебный год (для AnalyticsCube, только чтение)
+     */
+    @Query("""
+            SELECT t FROM TaskStatsEntity t
+            WHERE t.reportFileId IN (SELECT r.id FROM ReportFileEntity r
+                                     WHERE r.schoolName = :schoolName AND r.academicYear = :academicYear)
+            ORDER BY t.reportFileId, t.taskNumber""")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<TaskStatsEntity> findBySchoolAndYear(@Param("schoolName") String schoolName,
+                                              @Param("academicYear") String academicYear);
+}
@@ -1,9 +1,11 @@
 package org.school.analysis.service;
 
+import org.school.analysis.analytics.AnalyticsCube;
+
 import java.io.File;
 
 public interface ComparativeReportService {
-    File generateEgkrEgeComparativeReport(String school, String currentAcademicYear);
+    File generateEgkrEgeComparativeReport(AnalyticsCube cube);
 
-    File generateEgkrEgeSubjectComparativeReport(String school, String currentAcademicYear);
+    File generateEgkrEgeSubjectComparativeReport(AnalyticsCube cube);
 }
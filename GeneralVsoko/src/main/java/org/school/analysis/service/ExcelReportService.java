@@ -4,6 +4,7 @@ import org.school.analysis.model.dto.StudentDetailedResultDto;
 import org.school.analysis.model.dto.TaskStatisticsDto;
 import org.school.analysis.model.dto.TeacherTestDetailDto;
 import org.school.analysis.model.dto.TestSummaryDto;
+import org.school.analysis.model.dto.YearStatsDto;
 
 import java.io.File;
 import java.util.List;
@@ -16,8 +17,9 @@ public interface ExcelReportService {
 
     /**
      * Генерирует сводный отчет по всем тестам в Excel
+     * (с листом накопительной статистики за год, если yearStats не null)
      */
-    File generateSummaryReport(List<TestSummaryDto> tests, String school);
+    File generateSummaryReport(List<TestSummaryDto> tests, String school, YearStatsDto yearStats);
 
     /**
      * Генерирует детальный отчет по тесту
@@ -0,0 +1,29 @@
+package org.school.analysis.service;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Сервис хешей содержимого файлов с постоянным кэшем отпечатков (путь, размер, время изменения)
+ */
+public interface FileFingerprintService {
+
+    /**
+     * SHA-256 содержимого файла (из кэша, если файл не менялся)
+     */
+    String getContentHash(File file);
+
+    /**
+     * Хеши для набора файлов. Неизмененные файлы берутся из кэша без чтения содержимого.
+     * Файлы, хеш которых вычислить не удалось, в результат не попадают.
+     */
+    Map<File, String> resolveContentHashes(List<File> files);
+
+    /**
+     * То же, что {@link #resolveContentHashes}, но хеши вычисляются в отдельном пуле ввода-вывода,
+     * чтобы чтение следующей партии файлов шло параллельно с парсингом текущей
+     */
+    CompletableFuture<Map<File, String>> resolveContentHashesAsync(List<File> files);
+}
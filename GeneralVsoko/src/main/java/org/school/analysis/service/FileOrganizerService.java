@@ -27,6 +27,11 @@ public interface FileOrganizerService {
      */
     List<ReportFile> findReportFiles(String folderPath);
 
+    /**
+     * Создать ReportFile для одного Excel файла (статус PENDING, предмет и класс из имени)
+     */
+    ReportFile createReportFile(File file);
+
     /**
      * Извлечь предмет и класс из имени файла
      */
@@ -0,0 +1,13 @@
+package org.school.analysis.service;
+
+/**
+ * Режим постоянной работы: отслеживание папок "На разбор" и загрузка новых отчетов по мере появления
+ */
+public interface FolderWatchService {
+
+    /**
+     * Следить за входными папками всех школ до прерывания потока.
+     * Новые и измененные .xlsx файлы передаются в обработку после того, как перестанут меняться.
+     */
+    void watch();
+}
@@ -3,6 +3,7 @@ package org.school.analysis.service;
 import org.school.analysis.model.ParseResult;
 import org.school.analysis.model.ReportFile;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -35,4 +36,12 @@ public interface GeneralService {
      * 4. Перемещение обработанных файлов
      */
     List<ReportFile> moveProcessedFiles(List<ReportFile> successfullyProcessedFiles);
+
+    /**
+     * Инкрементальная обработка: только указанные (новые или измененные) файлы школы
+     * и перегенерация отчетов по затронутым предметам
+     *
+     * @return число сохраненных файлов
+     */
+    int processNewFiles(String school, List<File> files);
 }
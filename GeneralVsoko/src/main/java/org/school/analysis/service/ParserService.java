@@ -15,6 +15,12 @@ public interface ParserService {
      */
     ParseResult parseFile(ReportFile reportFile);
 
+    /**
+     * Парсинг одного файла с общими ограничениями параллельного парсинга:
+     * CPU-слот, бюджет памяти и лимит времени на файл
+     */
+    ParseResult parseFileWithLimits(ReportFile reportFile);
+
     /**
      * Парсинг списка файлов
      */
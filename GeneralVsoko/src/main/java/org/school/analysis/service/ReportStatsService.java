@@ -0,0 +1,23 @@
+package org.school.analysis.service;
+
+import org.school.analysis.model.ReportFile;
+import org.school.analysis.model.StudentResult;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ReportStatsService {
+
+    /**
+     * Рассчитывает и сохраняет статистику файла и его заданий
+     * (вызывается в транзакции сохранения учеников)
+     */
+    void saveStats(UUID reportFileId, ReportFile reportFile, List<StudentResult> studentResults);
+
+    /**
+     * Рассчитывает статистику для файлов, сохраненных без нее
+     *
+     * @return количество обработанных файлов
+     */
+    int backfillMissingStats();
+}
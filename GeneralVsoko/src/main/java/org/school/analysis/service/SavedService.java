@@ -3,7 +3,9 @@ package org.school.analysis.service;
 import org.school.analysis.model.ReportFile;
 import org.school.analysis.model.StudentResult;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 public interface SavedService {
@@ -13,6 +15,11 @@ public interface SavedService {
      */
     int saveAll(ReportFile reportFile, List<StudentResult> studentResults);
 
+    /**
+     * Возвращает те хеши файлов, которые уже сохранены в БД
+     */
+    Set<String> findExistingFileHashes(Collection<String> fileHashes);
+
     /**
      * Получает файл отчета по ID
      */
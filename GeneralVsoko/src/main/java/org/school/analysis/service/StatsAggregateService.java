@@ -0,0 +1,34 @@
+package org.school.analysis.service;
+
+import org.school.analysis.analytics.RunningStats;
+import org.school.analysis.model.ReportFileSavedEvent;
+import org.school.analysis.model.StatsDimension;
+
+import java.util.Map;
+
+public interface StatsAggregateService {
+
+    /**
+     * Добавляет статистику сохраненного файла к накопительной статистике школы
+     * (вызывается в транзакции сохранения)
+     */
+    void onReportFileSaved(ReportFileSavedEvent event);
+
+    /**
+     * Учитывает файлы, сохраненные до появления накопительной статистики
+     *
+     * @return количество обработанных файлов
+     */
+    int backfillMissingAggregates();
+
+    /**
+     * Накопительная статистика процента выполнения по предметам, классам или учителям (ключ -> статистика)
+     */
+    Map<String, RunningStats> getAggregates(String schoolName, String academicYear, StatsDimension dimension);
+
+    /**
+     * Накопительная статистика баллов по заданиям всех тестов школы за год одним запросом
+     * (ключ теста StatsDimension.testKey -> номер задания -> статистика)
+     */
+    Map<String, Map<Integer, RunningStats>> getTaskAggregates(String schoolName, String academicYear);
+}
@@ -0,0 +1,202 @@
+package org.school.analysis.service.impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.school.analysis.mapper.ReportMapper;
+import org.school.analysis.model.ReportFile;
+import org.school.analysis.model.ReportFileSavedEvent;
+import org.school.analysis.model.ScoreVector;
+import org.school.analysis.model.StudentResult;
+import org.school.analysis.model.entity.ReportFileEntity;
+import org.school.analysis.model.entity.ScoreVectorConverter;
+import org.school.analysis.model.entity.StudentResultEntity;
+import org.school.analysis.repository.ReportFileRepository;
+import org.school.analysis.service.FileFingerprintService;
+import org.school.analysis.service.ReportStatsService;
+import org.school.analysis.service.SavedService;
+import org.school.analysis.util.PerformanceTracker;
+import org.school.analysis.util.UuidUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.*;
+
+import static org.school.analysis.config.AppConfig.COPY_BUFFER_SIZE_BYTES;
+
+/**
+ * Сохранение для массовой загрузки (например, повторный разбор архива за учебный год).
+ * Строка report_files вставляется одним INSERT ... ON CONFLICT, а результаты учеников передаются
+ * в student_results одним COPY FROM STDIN (CSV) в той же транзакции - без управляемой
+ * сущности на каждую строку. Значения колонок те же, что при сохранении через JPA.
+ * Включается AppConfig.BULK_COPY_SAVE_ENABLED; чтение делегируется SavedServiceImpl.
+ */
+@Service
+@Primary
+@ConditionalOnExpression("T(org.school.analysis.config.AppConfig).BULK_COPY_SAVE_ENABLED")
+@RequiredArgsConstructor
+@Slf4j
+public class CopySavedServiceImpl implements SavedService {
+
+    private static final String COPY_STUDENT_RESULTS_SQL = """
+            COPY student_results (id, report_file_id, subject, class_name, fio, presence, variant,
+                                  test_type, test_date, total_score, percentage_score, task_scores_json,
+                                  task_scores, created_at, updated_at, academic_year, school_name)
+            FROM STDIN WITH (FORMAT csv)""";
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    private final SavedServiceImpl jpaSavedService;
+    private final ReportFileRepository reportFileRepository;
+    private final ReportMapper reportMapper;
+    private final FileFingerprintService fileFingerprintService;
+    private final ReportStatsService reportStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public int saveAll(ReportFile reportFile, List<StudentResult> studentResults) {
+        log.info("Сохранение файла {} с {} студентами (COPY)",
+                reportFile.getFileName(), studentResults.size());
+
+        try {
+            // 1. Хеш содержимого
+            String fileHash = reportFile.getFileHash() != null
+                    ? reportFile.getFileHash()
+                    : fileFingerprintService.getContentHash(reportFile.getFile());
+
+            long startNanos = System.nanoTime();
+
+            // 2. Строка файла с проверкой дубликата одним оператором (ON CONFLICT (file_hash) DO NOTHING)
+            ReportFileEntity reportFileEntity = reportMapper.toEntity(reportFile);
+            reportFileEntity.setFileHash(fileHash);
+            reportFileEntity.setStudentCount(studentResults.size());
+            Optional<UUID> reportFileId = reportFileRepository.insertIfAbsent(reportFileEntity);
+            if (reportFileId.isEmpty()) {
+                log.warn("Файл уже был обработан: {}", reportFile.getFileName());
+                return 0;
+            }
+            reportFileEntity.setId(reportFileId.get());
+
+            // 3. Ученики - потоком COPY через соединение текущей транзакции
+            // (reportFileEntity не управляется JPA и служит только источником значений колонок)
+            int maxTotalScore = reportFile.getMaxTotalScore();
+            int savedCount = entityManager.unwrap(Session.class).doReturningWork(connection ->
+                    copyStudentResults(connection, reportFileEntity, studentResults, maxTotalScore));
+
+            // 4. Статистика файла и заданий - в той же транзакции
+            reportStatsService.saveStats(reportFileEntity.getId(), reportFile, studentResults);
+            eventPublisher.publishEvent(new ReportFileSavedEvent(reportFileEntity.getId(), reportFile, studentResults));
+
+            PerformanceTracker.recordStudentInserts(savedCount, Duration.ofNanos(System.nanoTime() - startNanos));
+            log.info("✅ Сохранено {} студентов из файла {} (COPY)",
+                    savedCount, reportFile.getFileName());
+            return savedCount;
+
+        } catch (Exception e) {
+            log.error("❌ Ошибка сохранения файла {}: {}",
+                    reportFile.getFileName(), e.getMessage(), e);
+            throw new RuntimeException("Ошибка сохранения в базу данных: " + e.getMessage(), e);
+        }
+    }
+
+    private int copyStudentResults(Connection connection,
+                                   ReportFileEntity reportFileEntity,
+                                   List<StudentResult> studentResults,
+                                   int maxTotalScore) {
+        try {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            int rows = 0;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new PGCopyOutputStream(pgConnection, COPY_STUDENT_RESULTS_SQL, COPY_BUFFER_SIZE_BYTES),
+                    StandardCharsets.UTF_8), COPY_BUFFER_SIZE_BYTES)) {
+
+                for (StudentResult student : studentResults) {
+                    // Тот же маппинг и расчет процента, что и в SavedServiceImpl
+                    StudentResultEntity entity = reportMapper.toEntity(student, reportFileEntity);
+                    ScoreVector scoreVector = student.getScoreVector();
+                    if (scoreVector != null && !scoreVector.isEmpty() && maxTotalScore > 0) {
+                        entity.setPercentageScore(scoreVector.percentageOf(maxTotalScore));
+                    }
+                    writeRow(writer, UuidUtils.timeOrdered(), reportFileEntity.getId(), entity);
+                    rows++;
+                }
+            }
+            return rows;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка COPY в student_results: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeRow(Writer writer, UUID id, UUID reportFileId, StudentResultEntity entity) throws IOException {
+        writeValue(writer, id, false);
+        writeValue(writer, reportFileId, false);
+        writeValue(writer, entity.getSubject(), false);
+        writeValue(writer, entity.getClassName(), false);
+        writeValue(writer, entity.getFio(), false);
+        writeValue(writer, entity.getPresence(), false);
+        writeValue(writer, entity.getVariant(), false);
+        writeValue(writer, entity.getTestType(), false);
+        writeValue(writer, entity.getTestDate(), false);
+        writeValue(writer, entity.getTotalScore(), false);
+        writeValue(writer, entity.getPercentageScore(), false);
+        writeValue(writer, entity.getTaskScoresJson(), false);
+        writeValue(writer, ScoreVectorConverter.toArrayLiteral(entity.getTaskScores()), false);
+        writeValue(writer, entity.getCreatedAt(), false);
+        writeValue(writer, entity.getUpdatedAt(), false);
+        writeValue(writer, entity.getAcademicYear(), false);
+        writeValue(writer, entity.getSchoolName(), true);
+    }
+
+    /**
+     * Значение в формате CSV: null - пустое поле без кавычек, остальное - в кавычках
+     * (пустая строка в кавычках остается пустой строкой, а не NULL)
+     */
+    private void writeValue(Writer writer, Object value, boolean last) throws IOException {
+        if (value != null) {
+            String text = value.toString();
+            writer.write('"');
+            if (text.indexOf('"') >= 0) {
+                text = text.replace("\"", "\"\"");
+            }
+            writer.write(text);
+            writer.write('"');
+        }
+        writer.write(last ? '\n' : ',');
+    }
+
+    @Override
+    public Set<String> findExistingFileHashes(Collection<String> fileHashes) {
+        return jpaSavedService.findExistingFileHashes(fileHashes);
+    }
+
+    @Override
+    public ReportFile getReportFileById(UUID id) {
+        return jpaSavedService.getReportFileById(id);
+    }
+
+    @Override
+    public List<StudentResult> getStudentResultsByReportFileId(UUID reportFileId) {
+        return jpaSavedService.getStudentResultsByReportFileId(reportFileId);
+    }
+
+    @Override
+    public long countByReportFileId(UUID reportFileId) {
+        return jpaSavedService.countByReportFileId(reportFileId);
+    }
+}
@@ -0,0 +1,160 @@
+package org.school.analysis.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.school.analysis.model.entity.FileFingerprintEntity;
+import org.school.analysis.repository.FileFingerprintRepository;
+import org.school.analysis.service.FileFingerprintService;
+import org.school.analysis.util.FileHashUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.school.analysis.config.AppConfig.HASH_IO_THREADS;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileFingerprintServiceImpl implements FileFingerprintService {
+
+    private final FileFingerprintRepository fingerprintRepository;
+
+    // Отдельный пул для чтения файлов: хеширование не занимает потоки парсинга
+    private final ExecutorService ioExecutor = Executors.newFixedThreadPool(HASH_IO_THREADS, ioThreadFactory());
+
+    @Override
+    @Transactional
+    public String getContentHash(File file) {
+        String path = file.getAbsolutePath();
+        FileFingerprintEntity fingerprint = fingerprintRepository.findByFilePathIn(List.of(path))
+                .stream()
+                .findFirst()
+                .orElse(null);
+
+        long size = file.length();
+        long modified = file.lastModified();
+        if (fingerprint != null && fingerprint.matches(size, modified)) {
+            return fingerprint.getFileHash();
+        }
+
+        String hash = calculateContentHash(file);
+        fingerprintRepository.save(updateFingerprint(fingerprint, file, size, modified, hash));
+        return hash;
+    }
+
+    @Override
+    public Map<File, String> resolveContentHashes(List<File> files) {
+        return resolveContentHashesAsync(files).join();
+    }
+
+    @Override
+    public CompletableFuture<Map<File, String>> resolveContentHashesAsync(List<File> files) {
+        if (files.isEmpty()) {
+            return CompletableFuture.completedFuture(new LinkedHashMap<>());
+        }
+
+        Map<String, FileFingerprintEntity> fingerprints = fingerprintRepository
+                .findByFilePathIn(files.stream().map(File::getAbsolutePath).toList())
+                .stream()
+                .collect(Collectors.toMap(FileFingerprintEntity::getFilePath, Function.identity(), (a, b) -> a));
+
+        Map<File, CompletableFuture<String>> pending = new LinkedHashMap<>();
+        List<FileFingerprintEntity> updated = Collections.synchronizedList(new ArrayList<>());
+        int cacheHits = 0;
+
+        for (File file : files) {
+            FileFingerprintEntity fingerprint = fingerprints.get(file.getAbsolutePath());
+            long size = file.length();
+            long modified = file.lastModified();
+
+            if (fingerprint != null && fingerprint.matches(size, modified)) {
+                pending.put(file, CompletableFuture.completedFuture(fingerprint.getFileHash()));
+                cacheHits++;
+                continue;
+            }
+
+            pending.put(file, CompletableFuture.supplyAsync(() -> {
+                String hash = calculateContentHash(file);
+                updated.add(updateFingerprint(fingerprint, file, size, modified, hash));
+                return hash;
+            }, ioExecutor));
+        }
+
+        int fromCache = cacheHits;
+        return CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new))
+                .handle((ignored, error) -> collectHashes(pending, updated, fromCache));
+    }
+
+    /**
+     * Сбор результатов партии: ошибки чтения логируются, такие файлы в результат не попадают
+     */
+    private Map<File, String> collectHashes(Map<File, CompletableFuture<String>> pending,
+                                            List<FileFingerprintEntity> updated,
+                                            int cacheHits) {
+        Map<File, String> hashes = new LinkedHashMap<>();
+        pending.forEach((file, future) -> {
+            try {
+                hashes.put(file, future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("❌ Не удалось вычислить хеш файла {}: {}", file.getName(), cause.getMessage());
+            }
+        });
+
+        if (!updated.isEmpty()) {
+            fingerprintRepository.saveAll(updated);
+        }
+
+        log.info("Хеши файлов: {} из кэша отпечатков, {} вычислено, {} с ошибкой",
+                cacheHits, updated.size(), pending.size() - hashes.size());
+        return hashes;
+    }
+
+    private FileFingerprintEntity updateFingerprint(FileFingerprintEntity fingerprint, File file,
+                                                    long size, long modified, String hash) {
+        if (fingerprint == null) {
+            fingerprint = FileFingerprintEntity.builder()
+                    .filePath(file.getAbsolutePath())
+                    .build();
+        }
+        fingerprint.setFileSize(size);
+        fingerprint.setLastModified(modified);
+        fingerprint.setFileHash(hash);
+        fingerprint.setUpdatedAt(LocalDateTime.now());
+        return fingerprint;
+    }
+
+    private String calculateContentHash(File file) {
+        try {
+            return FileHashUtils.sha256Hex(file);
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка вычисления хеша файла " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static ThreadFactory ioThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "file-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ioExecutor.shutdownNow();
+    }
+}
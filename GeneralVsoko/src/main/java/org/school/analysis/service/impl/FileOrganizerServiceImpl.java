@@ -82,26 +82,31 @@ public class FileOrganizerServiceImpl implements FileOrganizerService {
 
         for (File file : Objects.requireNonNull(folder.listFiles())) {
             if (file.isFile() && file.getName().toLowerCase().endsWith(".xlsx")) {
-                ReportFile reportFile = new ReportFile();
-                reportFile.setFile(file);
-                reportFile.setStatus(ProcessingStatus.PENDING);
-                reportFile.setProcessedAt(LocalDateTime.now());
-
-                ReportFile metadata = extractMetadataFromFileName(file);
-                if (metadata.getSubject() != null) {
-                    reportFile.setSubject(metadata.getSubject());
-                }
-                if (metadata.getClassName() != null) {
-                    reportFile.setClassName(metadata.getClassName());
-                }
-
-                reportFiles.add(reportFile);
+                reportFiles.add(createReportFile(file));
             }
         }
 
         return reportFiles;
     }
 
+    @Override
+    public ReportFile createReportFile(File file) {
+        ReportFile reportFile = new ReportFile();
+        reportFile.setFile(file);
+        reportFile.setStatus(ProcessingStatus.PENDING);
+        reportFile.setProcessedAt(LocalDateTime.now());
+
+        ReportFile metadata = extractMetadataFromFileName(file);
+        if (metadata.getSubject() != null) {
+            reportFile.setSubject(metadata.getSubject());
+        }
+        if (metadata.getClassName() != null) {
+            reportFile.setClassName(metadata.getClassName());
+        }
+
+        return reportFile;
+    }
+
     @Override
     public ReportFile extractMetadataFromFileName(File file) {
         ReportFile reportFile = new ReportFile();
@@ -0,0 +1,281 @@
+package org.school.analysis.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.school.analysis.service.FolderWatchService;
+import org.school.analysis.service.GeneralService;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.school.analysis.config.AppConfig.*;
+
+/**
+ * Наблюдение за папками "На разбор" через WatchService с периодическим пересканированием.
+ * Файл передается в обработку только после того, как его размер и время изменения
+ * не менялись WATCH_DEBOUNCE_MILLIS (учитель или синхронизация могли еще не дописать файл).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FolderWatchServiceImpl implements FolderWatchService {
+
+    private final GeneralService generalService;
+
+    /**
+     * Состояние файла: размер, время изменения и момент, когда это состояние впервые замечено
+     */
+    private record FileState(long size, long lastModified, long observedAt) {
+        boolean sameAs(long otherSize, long otherModified) {
+            return size == otherSize && lastModified == otherModified;
+        }
+    }
+
+    @Override
+    public void watch() {
+        Map<Path, String> folders = resolveFolders();
+        if (folders.isEmpty()) {
+            log.warn("Нет доступных папок для наблюдения");
+            return;
+        }
+
+        // Уже лежащие файлы обработаны полным прогоном - отслеживаем только изменения после старта
+        Map<Path, FileState> knownFiles = new HashMap<>();
+        Map<Path, FileState> pendingFiles = new HashMap<>();
+        folders.keySet().forEach(folder -> listReportFiles(folder)
+                .forEach(path -> knownFiles.put(path, readState(path, System.currentTimeMillis()))));
+
+        WatchService watchService = openWatchService(folders.keySet());
+        log.info("👀 Наблюдение за папками: {} (события ФС: {}, пересканирование каждые {}с)",
+                folders.keySet(), watchService != null ? "да" : "нет", WATCH_POLL_INTERVAL_SECONDS);
+
+        long nextRescan = System.currentTimeMillis() + WATCH_POLL_INTERVAL_SECONDS * 1000L;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean rescanNeeded = watchService != null
+                        ? drainEvents(watchService, pendingFiles, knownFiles)
+                        : sleepTick();
+
+                long now = System.currentTimeMillis();
+                if (rescanNeeded || now >= nextRescan) {
+                    rescan(folders.keySet(), pendingFiles, knownFiles);
+                    nextRescan = now + WATCH_POLL_INTERVAL_SECONDS * 1000L;
+                }
+
+                processReadyFiles(folders, pendingFiles, knownFiles);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeQuietly(watchService);
+            log.info("Наблюдение за папками остановлено");
+        }
+    }
+
+    /**
+     * Входные папки школ (папка -> школа)
+     */
+    private Map<Path, String> resolveFolders() {
+        Map<Path, String> folders = new LinkedHashMap<>();
+        for (String school : SCHOOLS) {
+            Path folder = Paths.get(INPUT_FOLDER.replace("{школа}", school));
+            if (Files.isDirectory(folder)) {
+                folders.put(folder.toAbsolutePath(), school);
+            } else {
+                log.warn("Папка школы {} не найдена: {}", school, folder);
+            }
+        }
+        return folders;
+    }
+
+    /**
+     * WatchService для всех папок; null, если события ФС недоступны (остается только пересканирование)
+     */
+    private WatchService openWatchService(Collection<Path> folders) {
+        WatchService watchService = null;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (Path folder : folders) {
+                folder.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+            return watchService;
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("События файловой системы недоступны ({}), используется только пересканирование папок",
+                    e.getMessage());
+            closeQuietly(watchService);
+            return null;
+        }
+    }
+
+    /**
+     * Ожидание событий в течение одного такта
+     *
+     * @return true, если события потеряны (OVERFLOW) и нужно пересканировать папки
+     */
+    private boolean drainEvents(WatchService watchService,
+                                Map<Path, FileState> pendingFiles,
+                                Map<Path, FileState> knownFiles) throws InterruptedException {
+        boolean overflow = false;
+        WatchKey key = watchService.poll(WATCH_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        while (key != null) {
+            Path folder = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                    continue;
+                }
+                Path path = folder.resolve((Path) event.context());
+                if (isReportFile(path)) {
+                    markChanged(path, pendingFiles, knownFiles);
+                }
+            }
+            key.reset();
+            key = watchService.poll();
+        }
+        return overflow;
+    }
+
+    private boolean sleepTick() throws InterruptedException {
+        Thread.sleep(WATCH_TICK_MILLIS);
+        return false;
+    }
+
+    /**
+     * Пересканировать папки: отметить новые и измененные файлы и забыть файлы, которых в папках больше нет
+     * (перенесены после обработки или удалены), чтобы knownFiles не рос все время наблюдения
+     */
+    private void rescan(Collection<Path> folders, Map<Path, FileState> pendingFiles, Map<Path, FileState> knownFiles) {
+        Set<Path> present = new HashSet<>();
+        for (Path folder : folders) {
+            for (Path path : listReportFiles(folder)) {
+                present.add(path);
+                markChanged(path, pendingFiles, knownFiles);
+            }
+        }
+        knownFiles.keySet().retainAll(present);
+    }
+
+    /**
+     * Отметить файл как ожидающий, если он новый или изменился с момента последней обработки
+     */
+    private void markChanged(Path path, Map<Path, FileState> pendingFiles, Map<Path, FileState> knownFiles) {
+        FileState current = readState(path, System.currentTimeMillis());
+        if (current == null) {
+            return;
+        }
+
+        FileState known = knownFiles.get(path);
+        if (known != null && known.sameAs(current.size(), current.lastModified())) {
+            return;
+        }
+
+        FileState pending = pendingFiles.get(path);
+        if (pending == null || !pending.sameAs(current.size(), current.lastModified())) {
+            pendingFiles.put(path, current);
+        }
+    }
+
+    /**
+     * Передать в обработку файлы, которые перестали меняться, сгруппировав их по школам
+     */
+    private void processReadyFiles(Map<Path, String> folders,
+                                   Map<Path, FileState> pendingFiles,
+                                   Map<Path, FileState> knownFiles) {
+        if (pendingFiles.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Map<String, List<File>> readyBySchool = new LinkedHashMap<>();
+
+        Iterator<Map.Entry<Path, FileState>> iterator = pendingFiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, FileState> entry = iterator.next();
+            Path path = entry.getKey();
+            FileState current = readState(path, now);
+
+            if (current == null) {
+                // Файл удален или перемещен до обработки
+                iterator.remove();
+                continue;
+            }
+            if (!entry.getValue().sameAs(current.size(), current.lastModified())) {
+                // Файл еще дописывается - начинаем отсчет заново
+                entry.setValue(current);
+                continue;
+            }
+            if (now - entry.getValue().observedAt() < WATCH_DEBOUNCE_MILLIS || !isReadable(path)) {
+                continue;
+            }
+
+            iterator.remove();
+            knownFiles.put(path, current);
+            readyBySchool.computeIfAbsent(folders.get(path.getParent()), school -> new ArrayList<>())
+                    .add(path.toFile());
+        }
+
+        readyBySchool.forEach((school, files) -> {
+            log.info("📥 [{}] Новые файлы: {}", school, files.stream().map(File::getName).toList());
+            try {
+                generalService.processNewFiles(school, files);
+            } catch (Exception e) {
+                log.error("❌ [{}] Ошибка инкрементальной обработки: {}", school, e.getMessage(), e);
+            }
+        });
+    }
+
+    private List<Path> listReportFiles(Path folder) {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.filter(this::isReportFile).toList();
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать папку {}: {}", folder, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * .xlsx файл, не являющийся временным файлом блокировки Excel ("~$...")
+     */
+    private boolean isReportFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.toLowerCase().endsWith(".xlsx") && !name.startsWith("~$") && Files.isRegularFile(path);
+    }
+
+    private FileState readState(Path path, long observedAt) {
+        try {
+            return new FileState(Files.size(path), Files.getLastModifiedTime(path).toMillis(), observedAt);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Файл можно открыть на чтение (на Windows файл, который еще пишется, открыть нельзя)
+     */
+    private boolean isReadable(Path path) {
+        try (FileChannel ignored = FileChannel.open(path, StandardOpenOption.READ)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void closeQuietly(WatchService watchService) {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.debug("Ошибка закрытия WatchService: {}", e.getMessage());
+        }
+    }
+}
@@ -2,23 +2,30 @@ package org.school.analysis.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.school.analysis.analytics.AnalyticsCube;
+import org.school.analysis.analytics.RunningStats;
 import org.school.analysis.config.AppConfig;
 import org.school.analysis.model.ParseResult;
 import org.school.analysis.model.ReportFile;
+import org.school.analysis.model.ScoreVector;
+import org.school.analysis.model.StatsDimension;
 import org.school.analysis.model.StudentResult;
 import org.school.analysis.model.dto.StudentDetailedResultDto;
 import org.school.analysis.model.dto.TaskStatisticsDto;
 import org.school.analysis.model.dto.TeacherTestDetailDto;
 import org.school.analysis.model.dto.TestSummaryDto;
+import org.school.analysis.model.dto.YearStatsDto;
+import org.school.analysis.pipeline.IngestionPipeline;
 import org.school.analysis.service.AnalysisService;
 import org.school.analysis.service.ComparativeReportService;
 import org.school.analysis.service.ExcelReportService;
+import org.school.analysis.service.FileFingerprintService;
 import org.school.analysis.service.FileOrganizerService;
 import org.school.analysis.service.GeneralService;
 import org.school.analysis.service.ParserService;
 import org.school.analysis.service.SavedService;
+import org.school.analysis.service.StatsAggregateService;
 import org.school.analysis.service.TeacherService;
-import org.school.analysis.util.JsonScoreUtils;
 import org.school.analysis.util.PerformanceTracker;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -26,10 +33,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 import static org.school.analysis.config.AppConfig.*;
 import static org.school.analysis.model.ProcessingStatus.*;
@@ -47,6 +58,8 @@ public class GeneralServiceImpl implements GeneralService {
     private final ExcelReportService excelReportService;
     private final TeacherService teacherService;
     private final ComparativeReportService comparativeReportService;
+    private final FileFingerprintService fileFingerprintService;
+    private final StatsAggregateService statsAggregateService;
 
     private static class ParsePhaseResult {
         private int totalFilesFound;
@@ -173,14 +186,37 @@ public class GeneralServiceImpl implements GeneralService {
                                          List<StudentResult> studentResults,
                                          AtomicInteger totalStudentsSaved) {
         try {
-            if (!validateReportFile(reportFile)) {
-                markFileAsInvalid(reportFile, "Некорректные данные");
-                return false;
-            }
+            return prepareReport(reportFile, studentResults)
+                    && saveReport(reportFile, studentResults, totalStudentsSaved);
+        } catch (Exception e) {
+            log.error("Ошибка обработки отчета {}: {}",
+                    reportFile.getFileName(), e.getMessage());
+            markFileAsSaveFailed(reportFile, "Ошибка обработки: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Проверка отчета и расчет баллов перед сохранением
+     */
+    private boolean prepareReport(ReportFile reportFile, List<StudentResult> studentResults) {
+        if (!validateReportFile(reportFile)) {
+            markFileAsInvalid(reportFile, "Некорректные данные");
+            return false;
+        }
 
-            enrichReportFileData(reportFile);
-            calculateStudentScores(studentResults, reportFile);
+        enrichReportFileData(reportFile);
+        calculateStudentScores(studentResults, reportFile);
+        return true;
+    }
 
+    /**
+     * Сохранение отчета в БД
+     */
+    private boolean saveReport(ReportFile reportFile,
+                               List<StudentResult> studentResults,
+                               AtomicInteger totalStudentsSaved) {
+        try {
             int savedCount = savedService.saveAll(reportFile, studentResults);
 
             if (savedCount > 0) {
@@ -302,26 +338,89 @@ public class GeneralServiceImpl implements GeneralService {
      */
     private List<ReportFile> findAndProcessFiles(String folderPath, ParsePhaseResult result) {
         List<ReportFile> foundFiles = findReports(folderPath);
-        result.totalFilesFound = foundFiles.size();
-
         log.info("Найдено {} файлов для обработки", foundFiles.size());
+        processFiles(foundFiles, result);
+        return foundFiles;
+    }
+
+    /**
+     * Обработать файлы партиями: проверка дубликатов по хешу, парсинг, сохранение, перемещение
+     *
+     * @return сохраненные файлы
+     */
+    private List<ReportFile> processFiles(List<ReportFile> foundFiles, ParsePhaseResult result) {
+        result.totalFilesFound += foundFiles.size();
+        List<ReportFile> savedFiles = new ArrayList<>();
 
         if (foundFiles.isEmpty()) {
-            return foundFiles;
+            return savedFiles;
         }
 
+        // Хеши следующей партии вычисляются в пуле ввода-вывода, пока парсится текущая
+        CompletableFuture<Map<File, String>> nextHashes = resolveHashesAsync(getBatch(foundFiles, 0));
+
         // Обработка партиями
         for (int batchIndex = 0; batchIndex < foundFiles.size(); batchIndex += AppConfig.BATCH_SIZE) {
             List<ReportFile> batch = getBatch(foundFiles, batchIndex);
-            List<ReportFile> processedInBatch = processBatch(batch, result);
+            Map<File, String> hashes = nextHashes.join();
+
+            int nextBatchIndex = batchIndex + AppConfig.BATCH_SIZE;
+            if (nextBatchIndex < foundFiles.size()) {
+                nextHashes = resolveHashesAsync(getBatch(foundFiles, nextBatchIndex));
+            }
+
+            // Уже загруженные файлы отсекаем до парсинга
+            List<ReportFile> newFiles = skipAlreadyProcessedFiles(batch, hashes, result);
+            List<ReportFile> processedInBatch = newFiles.isEmpty() ? List.of() : processBatch(newFiles, result);
+            savedFiles.addAll(processedInBatch);
 
             log.debug("Партия {}-{} обработана: {} успешно",
                     batchIndex,
-                    Math.min(batchIndex + AppConfig.BATCH_SIZE, foundFiles.size()),
+                    Math.min(nextBatchIndex, foundFiles.size()),
                     processedInBatch.size());
         }
 
-        return foundFiles;
+        return savedFiles;
+    }
+
+    private CompletableFuture<Map<File, String>> resolveHashesAsync(List<ReportFile> batch) {
+        return fileFingerprintService.resolveContentHashesAsync(
+                batch.stream().map(ReportFile::getFile).toList());
+    }
+
+    /**
+     * Проверка дубликатов до парсинга: хеш содержимого (через кэш отпечатков)
+     * сверяется с уже сохраненными файлами одним запросом.
+     * Файлы, хеш которых вычислить не удалось, считаются ошибочными - без хеша дубликаты не отследить.
+     * Возвращает только новые файлы.
+     */
+    private List<ReportFile> skipAlreadyProcessedFiles(List<ReportFile> batch,
+                                                       Map<File, String> hashes,
+                                                       ParsePhaseResult result) {
+        Set<String> existingHashes = savedService.findExistingFileHashes(hashes.values());
+
+        List<ReportFile> newFiles = new ArrayList<>(batch.size());
+        for (ReportFile reportFile : batch) {
+            String hash = hashes.get(reportFile.getFile());
+            reportFile.setFileHash(hash);
+
+            if (hash == null) {
+                reportFile.setStatus(ERROR_PARSING);
+                reportFile.setErrorMessage("Не удалось прочитать файл для вычисления хеша");
+                result.failedFiles.add(reportFile);
+                log.error("❌ Файл '{}' пропущен: не удалось вычислить хеш", reportFile.getFileName());
+            } else if (existingHashes.contains(hash)) {
+                reportFile.setStatus(DUPLICATE);
+                reportFile.setErrorMessage("Файл уже был обработан");
+                result.failedFiles.add(reportFile);
+                log.info("⏭️ Файл '{}' уже загружен в БД - пропускаем без парсинга", reportFile.getFileName());
+            } else {
+                newFiles.add(reportFile);
+            }
+        }
+
+        log.info("Новых файлов для парсинга: {} из {}", newFiles.size(), batch.size());
+        return newFiles;
     }
 
     /**
@@ -329,6 +428,10 @@ public class GeneralServiceImpl implements GeneralService {
      */
     private List<ReportFile> processBatch(List<ReportFile> batch,
                                           ParsePhaseResult result) {
+        if (PIPELINE_ENABLED) {
+            return processBatchPipelined(batch, result);
+        }
+
         List<ParseResult> parseResults = parseReports(batch);
 
         // Сохранение в БД
@@ -342,6 +445,51 @@ public class GeneralServiceImpl implements GeneralService {
         return savedFiles;
     }
 
+    /**
+     * Обработка партии конвейером: файл N+1 парсится, пока файл N сохраняется в БД,
+     * а файл N-1 перемещается в папку предмета
+     */
+    private List<ReportFile> processBatchPipelined(List<ReportFile> batch,
+                                                   ParsePhaseResult result) {
+        AtomicInteger totalStudentsSaved = new AtomicInteger(0);
+
+        // Парсинг с теми же ограничениями, что и parseFiles: CPU-слоты, бюджет памяти, лимит времени
+        IngestionPipeline pipeline = IngestionPipeline.builder(parserService::parseFileWithLimits, PIPELINE_PARSE_WORKERS)
+                .stage("Проверка", PIPELINE_VALIDATE_WORKERS,
+                        parsed -> prepareReport(parsed.getReportFile(), parsed.getStudentResults()))
+                .stage("Сохранение", PIPELINE_SAVE_WORKERS,
+                        parsed -> saveReport(parsed.getReportFile(), parsed.getStudentResults(), totalStudentsSaved))
+                .stage("Перемещение", PIPELINE_MOVE_WORKERS,
+                        parsed -> moveSavedFile(parsed.getReportFile()))
+                .queueCapacity(PIPELINE_QUEUE_CAPACITY)
+                .metricsLogInterval(PIPELINE_METRICS_LOG_INTERVAL_SECONDS)
+                .build();
+
+        IngestionPipeline.Result pipelineResult = pipeline.run(batch);
+        PerformanceTracker.recordPipelineStages(pipelineResult.getStageMetrics());
+
+        List<ReportFile> savedFiles = pipelineResult.getCompleted();
+        result.successfullySaved += savedFiles.size();
+        log.info("Всего сохранено студентов: {}", totalStudentsSaved.get());
+
+        collectFailedFiles(pipelineResult.getFailed(), result.failedFiles);
+
+        return savedFiles;
+    }
+
+    /**
+     * Перемещение сохраненного файла. Ошибка перемещения не отменяет сохранение:
+     * данные уже в БД, файл остается в папке "На разбор".
+     */
+    private boolean moveSavedFile(ReportFile reportFile) {
+        try {
+            fileOrganizerService.moveToSubjectFolder(reportFile);
+        } catch (Exception e) {
+            log.error("Ошибка при перемещении файла {}: {}", reportFile.getFileName(), e.getMessage());
+        }
+        return true;
+    }
+
     /**
      * Получить партию файлов
      */
@@ -401,79 +549,168 @@ public class GeneralServiceImpl implements GeneralService {
     private List<File> generateAllReports(String school, String currentAcademicYear) {
         List<File> allReports = new ArrayList<>();
 
+        // Данные школы за год загружаются один раз, все шаги читают их из памяти
+        AnalyticsCube cube = analysisService.loadCube(school, currentAcademicYear);
+
         // 1. Сводный отчет по всем тестам
         log.warn("📊 [{}] Шаг 2.1: генерация сводного отчета", school);
-        generateSummaryReport(allReports, school, currentAcademicYear);
+        generateSummaryReport(allReports, cube);
         log.warn("✅ [{}] Шаг 2.1 завершен", school);
 
         // 2. Детальные отчеты по тестам
         log.warn("📊 [{}] Шаг 2.2: генерация детальных отчетов по тестам", school);
-        generateTestDetailReports(allReports, school, currentAcademicYear);
+        generateTestDetailReports(cube.getTestSummaries(), allReports, cube);
         log.warn("✅ [{}] Шаг 2.2 завершен", school);
 
         // 3. Отчеты по учителям
         log.warn("📊 [{}] Шаг 2.3: генерация отчетов по учителям", school);
-        generateTeacherReports(allReports, school, currentAcademicYear);
+        generateTeacherReports(allReports, cube);
         log.warn("✅ [{}] Шаг 2.3 завершен", school);
 
         // 4. Сравнительный ЕГКР/ЕГЭ отчет
         log.warn("📊 [{}] Шаг 2.4: генерация сравнительного отчета ЕГКР/ЕГЭ", school);
-        generateComparativeEgkrReport(allReports, school, currentAcademicYear);
-        generateComparativeEgkrBySubjectReport(allReports, school, currentAcademicYear);
+        generateComparativeEgkrReport(allReports, cube);
+        generateComparativeEgkrBySubjectReport(allReports, cube);
         log.warn("✅ [{}] Шаг 2.4 завершен", school);
 
         return allReports;
     }
 
+    @Override
+    public int processNewFiles(String school, List<File> files) {
+        String currentAcademicYear = ALL_ACADEMIC_YEAR.get(0);
+        log.info("▶️ [{}] Инкрементальная обработка {} файлов", school, files.size());
+
+        ParsePhaseResult result = new ParsePhaseResult();
+        List<ReportFile> reportFiles = files.stream()
+                .filter(File::isFile)
+                .map(fileOrganizerService::createReportFile)
+                .toList();
+        List<ReportFile> savedFiles = processFiles(reportFiles, result);
+        logFailureHints(result);
+
+        Set<String> subjects = savedFiles.stream()
+                .map(ReportFile::getSubject)
+                .filter(subject -> subject != null && !subject.isBlank())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if (subjects.isEmpty()) {
+            log.info("✅ [{}] Новых данных нет - отчеты не перегенерируются (ошибок: {})",
+                    school, result.failedFiles.size());
+            return 0;
+        }
+
+        try {
+            List<File> reports = generateReportsForSubjects(school, currentAcademicYear, subjects);
+            log.info("✅ [{}] Сохранено файлов: {}, перегенерировано отчетов: {} (предметы: {})",
+                    school, savedFiles.size(), reports.size(), subjects);
+        } catch (Exception e) {
+            log.error("❌ [{}] Ошибка перегенерации отчетов: {}", school, e.getMessage(), e);
+        }
+        return savedFiles.size();
+    }
+
+    /**
+     * Перегенерация отчетов, затронутых новыми данными по предметам:
+     * сводный отчет школы, детальные отчеты тестов этих предметов,
+     * отчеты учителей, ведущих эти предметы, и сравнительные отчеты ЕГКР/ЕГЭ
+     */
+    private List<File> generateReportsForSubjects(String school, String currentAcademicYear, Set<String> subjects) {
+        List<File> allReports = new ArrayList<>();
+        AnalyticsCube cube = analysisService.loadCube(school, currentAcademicYear);
+
+        generateSummaryReport(allReports, cube);
+
+        List<TestSummaryDto> affectedTests = cube.getTestSummaries()
+                .stream()
+                .filter(test -> subjects.contains(test.getSubject()))
+                .toList();
+        generateTestDetailReports(affectedTests, allReports, cube);
+
+        affectedTests.stream()
+                .map(TestSummaryDto::getTeacher)
+                .filter(teacher -> teacher != null && !teacher.isBlank())
+                .distinct()
+                .forEach(teacher -> generateSingleTeacherReport(teacher, allReports, cube));
+
+        generateComparativeEgkrReport(allReports, cube);
+        generateComparativeEgkrBySubjectReport(allReports, cube);
+
+        return allReports;
+    }
+
     /**
      * Генерация сводного отчета
      */
-    private void generateSummaryReport(List<File> allReports,
-                                       String schoolName,
-                                       String currentAcademicYear) {
-        List<TestSummaryDto> allTests = analysisService.getAllTestsSummary(schoolName, currentAcademicYear);
+    private void generateSummaryReport(List<File> allReports, AnalyticsCube cube) {
+        List<TestSummaryDto> allTests = cube.getTestSummaries();
 
         if (allTests.isEmpty()) {
             log.warn("Нет данных для сводного отчета");
             return;
         }
 
-        File summaryReport = excelReportService.generateSummaryReport(allTests, schoolName);
+        File summaryReport = excelReportService.generateSummaryReport(allTests, cube.getSchoolName(),
+                loadYearStats(cube));
         addReportIfValid(summaryReport, allReports, "Сводный отчет");
     }
 
+    /**
+     * Накопительная статистика за год из stats_aggregates (обновляется при сохранении файлов,
+     * по ученикам не пересчитывается); null, если она отключена
+     */
+    private YearStatsDto loadYearStats(AnalyticsCube cube) {
+        if (!STATS_AGGREGATES_ENABLED) {
+            return null;
+        }
+        String school = cube.getSchoolName();
+        String academicYear = cube.getAcademicYear();
+
+        // Задания всех тестов одним запросом; подписи и порядок - по сводке тестов
+        Map<String, Map<Integer, RunningStats>> taskAggregates =
+                statsAggregateService.getTaskAggregates(school, academicYear);
+        Map<String, Map<Integer, RunningStats>> tasksByTest = new LinkedHashMap<>();
+        for (TestSummaryDto test : cube.getTestSummaries()) {
+            Map<Integer, RunningStats> taskStats = taskAggregates.get(
+                    StatsDimension.testKey(test.getSubject(), test.getClassName(), test.getTestType()));
+            if (taskStats != null) {
+                tasksByTest.putIfAbsent(test.getSubject() + ", " + test.getClassName()
+                        + (test.getTestType() != null ? ", " + test.getTestType() : ""), taskStats);
+            }
+        }
+
+        return YearStatsDto.builder()
+                .subjects(statsAggregateService.getAggregates(school, academicYear, StatsDimension.SUBJECT))
+                .classes(statsAggregateService.getAggregates(school, academicYear, StatsDimension.CLASS))
+                .teachers(statsAggregateService.getAggregates(school, academicYear, StatsDimension.TEACHER))
+                .tasksByTest(tasksByTest)
+                .build();
+    }
+
     /**
      * Генерация детальных отчетов по тестам
      */
-    private void generateTestDetailReports(List<File> allReports, String schoolName,
-                                           String currentAcademicYear) {
-        List<TestSummaryDto> allTests = analysisService.getAllTestsSummary(schoolName, currentAcademicYear);
+    private void generateTestDetailReports(List<TestSummaryDto> tests, List<File> allReports, AnalyticsCube cube) {
+        tests.stream()
+                .filter(test -> test.getReportFileId() == null || test.getReportFileId().trim().isEmpty())
+                .forEach(test -> log.warn("Пропускаем тест без ID: {}", test.getFileName()));
 
-        for (TestSummaryDto test : allTests) {
-            generateSingleTestDetailReport(test, allReports, schoolName);
+        for (TeacherTestDetailDto bundle : cube.getDetailBundles(tests)) {
+            generateSingleTestDetailReport(bundle, allReports, cube.getSchoolName());
         }
     }
 
     /**
      * Генерация детального отчета для одного теста
      */
-    private void generateSingleTestDetailReport(TestSummaryDto test, List<File> allReports,
+    private void generateSingleTestDetailReport(TeacherTestDetailDto bundle, List<File> allReports,
                                                 String schoolName) {
-        if (test.getReportFileId() == null || test.getReportFileId().trim().isEmpty()) {
-            log.warn("Пропускаем тест без ID: {}", test.getFileName());
-            return;
-        }
-
+        TestSummaryDto test = bundle.getTestSummary();
         try {
-            String testId = test.getReportFileId();
-
             log.info("Генерация детального отчета с графиками для теста: {}", test.getFileName());
 
-            List<StudentDetailedResultDto> studentResults =
-                    analysisService.getStudentDetailedResults(testId);
-
-            Map<Integer, TaskStatisticsDto> taskStatistics =
-                    analysisService.getTaskStatistics(testId);
+            List<StudentDetailedResultDto> studentResults = bundle.getStudentResults();
+            Map<Integer, TaskStatisticsDto> taskStatistics = bundle.getTaskStatistics();
 
             if (studentResults.isEmpty()) {
                 log.warn("Нет данных студентов для теста: {}", test.getFileName());
@@ -509,30 +746,35 @@ public class GeneralServiceImpl implements GeneralService {
     /**
      * Генерация отчетов по учителям
      */
-    private void generateTeacherReports(List<File> allReports, String schoolName,
-                                        String currentAcademicYear) {
-        List<String> teachers = analysisService.getAllTeachers(schoolName, currentAcademicYear);
+    private void generateTeacherReports(List<File> allReports, AnalyticsCube cube) {
+        List<String> teachers = cube.getTeachers();
         log.info("✅ размер teachers '{}' ", teachers.size());
         for (String teacher : teachers) {
-            try {
-                log.info("✅ зашли в  generateTeacherReports и анализируем '{}' ", teacher);
-                List<TestSummaryDto> teacherTests = analysisService.getTestsByTeacher(teacher,
-                        schoolName, currentAcademicYear);
-                log.info("✅ размер teacherTests '{}' ", teacherTests.size());
-                // Для каждого теста учителя получаем детальные данные
-                List<TeacherTestDetailDto> teacherTestDetails = getTeacherTestDetails(teacherTests);
-                log.info("✅ размер teacherTestDetails '{}' ", teacherTestDetails.size());
-                // Генерируем полный отчет учителя с детальными данными
-                File teacherReport = generateTeacherReportWithTimeout(
-                        teacher, teacherTests, teacherTestDetails, schoolName);
-
-                addReportIfValid(teacherReport, allReports,
-                        String.format("Отчет для учителя '%s' с детализацией", teacher));
+            generateSingleTeacherReport(teacher, allReports, cube);
+        }
+    }
 
-            } catch (Exception e) {
-                log.error("Ошибка генерации отчета для учителя {}: {}",
-                        teacher, e.getMessage(), e);
-            }
+    /**
+     * Генерация отчета одного учителя
+     */
+    private void generateSingleTeacherReport(String teacher, List<File> allReports, AnalyticsCube cube) {
+        try {
+            log.info("✅ зашли в  generateTeacherReports и анализируем '{}' ", teacher);
+            List<TestSummaryDto> teacherTests = cube.getTestsByTeacher(teacher);
+            log.info("✅ размер teacherTests '{}' ", teacherTests.size());
+            // Для каждого теста учителя получаем детальные данные
+            List<TeacherTestDetailDto> teacherTestDetails = cube.getDetailBundles(teacherTests);
+            log.info("✅ размер teacherTestDetails '{}' ", teacherTestDetails.size());
+            // Генерируем полный отчет учителя с детальными данными
+            File teacherReport = generateTeacherReportWithTimeout(
+                    teacher, teacherTests, teacherTestDetails, cube.getSchoolName());
+
+            addReportIfValid(teacherReport, allReports,
+                    String.format("Отчет для учителя '%s' с детализацией", teacher));
+
+        } catch (Exception e) {
+            log.error("Ошибка генерации отчета для учителя {}: {}",
+                    teacher, e.getMessage(), e);
         }
     }
 
@@ -557,43 +799,6 @@ public class GeneralServiceImpl implements GeneralService {
         }
     }
 
-    /**
-     * Получает детальные данные для тестов учителя
-     */
-    private List<TeacherTestDetailDto> getTeacherTestDetails(List<TestSummaryDto> teacherTests) {
-        List<TeacherTestDetailDto> details = new ArrayList<>();
-
-        for (TestSummaryDto test : teacherTests) {
-            if (test.getReportFileId() == null || test.getReportFileId().trim().isEmpty()) {
-                continue;
-            }
-
-            try {
-                String testId = test.getReportFileId();
-
-                List<StudentDetailedResultDto> studentResults =
-                        analysisService.getStudentDetailedResults(testId);
-
-                Map<Integer, TaskStatisticsDto> taskStatistics =
-                        analysisService.getTaskStatistics(testId);
-
-                TeacherTestDetailDto detailDto = TeacherTestDetailDto.builder()
-                        .testSummary(test)
-                        .studentResults(studentResults)
-                        .taskStatistics(taskStatistics)
-                        .build();
-
-                details.add(detailDto);
-
-            } catch (Exception e) {
-                log.error("Ошибка получения детальных данных для теста {}: {}",
-                        test.getFileName(), e.getMessage());
-            }
-        }
-
-        return details;
-    }
-
     /**
      * Добавить отчет в список, если он валиден
      */
@@ -606,12 +811,11 @@ public class GeneralServiceImpl implements GeneralService {
         }
     }
 
-    private void generateComparativeEgkrReport(List<File> allReports, String schoolName,
-                                               String currentAcademicYear) {
+    private void generateComparativeEgkrReport(List<File> allReports, AnalyticsCube cube) {
         ExecutorService executor = Executors.newSingleThreadExecutor();
         try {
             Future<File> future = executor.submit(() ->
-                    comparativeReportService.generateEgkrEgeComparativeReport(schoolName, currentAcademicYear));
+                    comparativeReportService.generateEgkrEgeComparativeReport(cube));
 
             File report = future.get(90, TimeUnit.SECONDS);
             addReportIfValid(report, allReports, "Сравнительный отчет ЕГКР/ЕГЭ");
@@ -625,12 +829,11 @@ public class GeneralServiceImpl implements GeneralService {
         }
     }
 
-    private void generateComparativeEgkrBySubjectReport(List<File> allReports, String schoolName,
-                                                        String currentAcademicYear) {
+    private void generateComparativeEgkrBySubjectReport(List<File> allReports, AnalyticsCube cube) {
         ExecutorService executor = Executors.newSingleThreadExecutor();
         try {
             Future<File> future = executor.submit(() ->
-                    comparativeReportService.generateEgkrEgeSubjectComparativeReport(schoolName, currentAcademicYear));
+                    comparativeReportService.generateEgkrEgeSubjectComparativeReport(cube));
 
             File report = future.get(90, TimeUnit.SECONDS);
             addReportIfValid(report, allReports, "Сравнительный отчет ЕГКР/ЕГЭ по предметам");
@@ -649,9 +852,7 @@ public class GeneralServiceImpl implements GeneralService {
      * Обогатить данные отчета
      */
     private void enrichReportFileData(ReportFile reportFile) {
-        if (reportFile.getMaxScores() != null) {
-            reportFile.setTaskCount(reportFile.getMaxScores().size());
-        }
+        reportFile.setTaskCount(reportFile.getMaxScores().getTaskCount());
     }
 
     /**
@@ -659,14 +860,14 @@ public class GeneralServiceImpl implements GeneralService {
      */
     private void calculateStudentScores(List<StudentResult> studentResults,
                                         ReportFile reportFile) {
+        int maxTotalScore = reportFile.getMaxTotalScore();
         studentResults.forEach(student -> {
-            if (student.getTaskScores() != null) {
-                int totalScore = JsonScoreUtils.calculateTotalScore(student.getTaskScores());
-                student.setTotalScore(totalScore);
+            ScoreVector scoreVector = student.getScoreVector();
+            if (scoreVector != null) {
+                student.setTotalScore(scoreVector.getTotal());
 
-                if (reportFile.getMaxTotalScore() > 0) {
-                    double percentage = (totalScore * 100.0) / reportFile.getMaxTotalScore();
-                    student.setPercentageScore(Math.round(percentage * 100.0) / 100.0);
+                if (maxTotalScore > 0) {
+                    student.setPercentageScore(scoreVector.percentageOf(maxTotalScore));
                 }
             }
         });
@@ -1,21 +1,26 @@
 package org.school.analysis.service.impl;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.school.analysis.exception.ValidationException;
 import org.school.analysis.model.*;
+import org.school.analysis.parser.WorkbookSession;
 import org.school.analysis.parser.strategy.MetadataParser;
+import org.school.analysis.parser.strategy.SheetValues;
+import org.school.analysis.parser.strategy.StreamingStudentDataParser;
 import org.school.analysis.parser.strategy.StudentDataParser;
 import org.school.analysis.service.ParserService;
-import org.school.analysis.util.JsonScoreUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
+import static org.school.analysis.config.AppConfig.*;
+
 /**
  * Главный парсер Excel отчетов
  */
@@ -24,153 +29,316 @@ public class ParserServiceImpl implements ParserService {
 
     private static final Logger log = LoggerFactory.getLogger(ParserServiceImpl.class);
 
+    private static final String INFO_SHEET = "Информация";
+    private static final String DATA_SHEET = "Сбор информации";
+    private static final int INFO_SHEET_ROWS = 9; // Строки 0..8 листа "Информация"
+
+    private static final long KB = 1024;
+
     private final MetadataParser metadataParser;
     private final StudentDataParser studentDataParser;
+    private final StreamingStudentDataParser streamingStudentDataParser;
 
-    public ParserServiceImpl(MetadataParser metadataParser, StudentDataParser studentDataParser) {
+    // Ограничения параллельного парсинга: CPU-слоты и бюджет памяти (в КБ)
+    private final Semaphore cpuPermits = new Semaphore(PARSE_CPU_PERMITS, true);
+    private final int memoryBudgetKb = (int) Math.min(Integer.MAX_VALUE, PARSE_MEMORY_BUDGET_BYTES / KB);
+    private final Semaphore memoryPermits = new Semaphore(memoryBudgetKb, true);
+
+    public ParserServiceImpl(MetadataParser metadataParser,
+                             StudentDataParser studentDataParser,
+                             StreamingStudentDataParser streamingStudentDataParser) {
         this.metadataParser = metadataParser;
         this.studentDataParser = studentDataParser;
+        this.streamingStudentDataParser = streamingStudentDataParser;
     }
 
     /**
-     * Парсинг списка файлов
+     * Парсинг списка файлов.
+     * Порядок результатов всегда совпадает с порядком входного списка.
      */
     @Override
     public List<ParseResult> parseFiles(List<ReportFile> reportFiles) {
         log.info("Начало парсинга {} файлов", reportFiles.size());
-        return reportFiles.stream()
-                .map(this::parseFile)
-                .collect(Collectors.toList());
+
+        if (!PARALLEL_PARSING_ENABLED || reportFiles.size() < 2) {
+            return reportFiles.stream()
+                    .map(this::parseFile)
+                    .collect(Collectors.toList());
+        }
+
+        return parseFilesConcurrently(reportFiles);
     }
 
     /**
-     * Полный парсинг Excel файла
+     * Параллельный парсинг: виртуальный поток на файл (ожидание I/O не занимает ядра),
+     * одновременная работа ограничена CPU-слотами и бюджетом памяти
+     */
+    private List<ParseResult> parseFilesConcurrently(List<ReportFile> reportFiles) {
+        log.info("Параллельный парсинг: CPU-слотов={}, бюджет памяти={} МБ, лимит на файл={}с",
+                PARSE_CPU_PERMITS, memoryBudgetKb / KB, PARSE_FILE_TIMEOUT_SECONDS);
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<ParseResult>> futures = new ArrayList<>(reportFiles.size());
+            for (ReportFile reportFile : reportFiles) {
+                futures.add(executor.submit(() -> parseWithLimits(reportFile, executor)));
+            }
+
+            List<ParseResult> results = new ArrayList<>(reportFiles.size());
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(awaitResult(futures.get(i), reportFiles.get(i)));
+            }
+            return results;
+        } finally {
+            // Не ждем зависшие (отмененные по таймауту) задачи
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public ParseResult parseFileWithLimits(ReportFile reportFile) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            return parseWithLimits(reportFile, executor);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ParseResult.error(reportFile, "Парсинг прерван");
+        } finally {
+            // Не ждем зависшую (отмененную по таймауту) задачу
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Парсинг одного файла с захватом CPU-слота и памяти и лимитом времени.
+     * Слоты освобождаются только после фактического завершения парсинга,
+     * даже если результат уже отброшен по таймауту.
+     */
+    private ParseResult parseWithLimits(ReportFile reportFile, ExecutorService executor)
+            throws InterruptedException {
+        int memoryKb = estimateMemoryKb(reportFile);
+
+        memoryPermits.acquire(memoryKb);
+        try {
+            cpuPermits.acquire();
+        } catch (InterruptedException e) {
+            memoryPermits.release(memoryKb);
+            throw e;
+        }
+
+        Future<ParseResult> parsing;
+        try {
+            parsing = executor.submit(() -> {
+                try {
+                    return parseFile(reportFile);
+                } finally {
+                    cpuPermits.release();
+                    memoryPermits.release(memoryKb);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            cpuPermits.release();
+            memoryPermits.release(memoryKb);
+            throw e;
+        }
+
+        try {
+            return parsing.get(PARSE_FILE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            parsing.cancel(true);
+            log.error("Парсинг файла {} превысил лимит времени ({}с)",
+                    reportFile.getFileName(), PARSE_FILE_TIMEOUT_SECONDS);
+            return ParseResult.error(reportFile,
+                    "Превышен лимит времени парсинга (" + PARSE_FILE_TIMEOUT_SECONDS + " с)");
+        } catch (ExecutionException e) {
+            return toErrorResult(reportFile, e.getCause() instanceof Exception cause ? cause : e);
+        }
+    }
+
+    /**
+     * Ожидание результата задачи с сохранением порядка
+     */
+    private ParseResult awaitResult(Future<ParseResult> future, ReportFile reportFile) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return ParseResult.error(reportFile, "Парсинг прерван");
+        } catch (ExecutionException e) {
+            return toErrorResult(reportFile, e.getCause() instanceof Exception cause ? cause : e);
+        }
+    }
+
+    /**
+     * Оценка памяти на парсинг файла (в КБ, не больше всего бюджета)
+     */
+    private int estimateMemoryKb(ReportFile reportFile) {
+        long fileSize = reportFile.getFile().length();
+        long bytes = fileSize >= STREAMING_PARSE_THRESHOLD_BYTES
+                ? STREAMING_PARSE_MEMORY_BYTES
+                : fileSize * DOM_PARSE_MEMORY_FACTOR;
+        return (int) Math.max(1, Math.min(memoryBudgetKb, bytes / KB));
+    }
+
+    /**
+     * Полный парсинг Excel файла.
+     * Книга открывается один раз (WorkbookSession), и проверка листов,
+     * метаданные и данные учеников читаются из одной сессии.
      */
     @Override
     public ParseResult parseFile(ReportFile reportFile) {
         log.info("Начинаем парсинг файла: {}", reportFile.getFile().getName());
         log.debug("Полный путь к файлу: {}", reportFile.getFile().getAbsolutePath());
 
-        try (FileInputStream file = new FileInputStream(reportFile.getFile());
-             Workbook workbook = new XSSFWorkbook(file)) {
+        try (WorkbookSession session = WorkbookSession.open(reportFile.getFile())) {
 
-            log.debug("Файл успешно открыт, количество листов: {}", workbook.getNumberOfSheets());
+            log.debug("Файл успешно открыт, листы: {}", session.getSheetNames());
 
-            // Выводим названия всех листов для отладки
-            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-                log.debug("Лист {}: {}", i, workbook.getSheetName(i));
-            }
-
-            // 1. Проверяем файл на структуру и парсим лист Информация
+            // 1. Проверяем файл на структуру
             log.debug("Проверка структуры файла...");
-            if (!validateExcelFile(reportFile)) {
+            if (!validateExcelFile(session)) {
                 log.error("Файл {} не прошел валидацию - неправильная структура", reportFile.getFile().getName());
                 return ParseResult.error(reportFile, "неправильная структура отчёта");
             }
 
-            Sheet infoSheet = workbook.getSheet("Информация");
+            // Большие файлы читаем потоково, без построения DOM всей книги
+            if (reportFile.getFile().length() >= STREAMING_PARSE_THRESHOLD_BYTES) {
+                return parseStreaming(session, reportFile);
+            }
+
+            // 2. Парсим лист Информация
+            Sheet infoSheet = session.getSheet(INFO_SHEET);
             log.debug("Лист 'Информация' найден, строк: {}", infoSheet.getPhysicalNumberOfRows());
 
             TestMetadata metadata = metadataParser.parseMetadata(infoSheet);
             var maxScores = metadata.getMaxScores();
             log.debug("Парсинг максимальных баллов...");
-            log.info("Метаданные распарсены: предмет={}, класс={}, дата={}, учитель={}",
-                    metadata.getSubject(), metadata.getClassName(),
-                    metadata.getTestDate(), metadata.getTeacher());
+            logMetadata(metadata);
 
-            // 2. Парсинг данных учеников
-            Sheet dataSheet = workbook.getSheet("Сбор информации");
+            // 3. Парсинг данных учеников
+            Sheet dataSheet = session.getSheet(DATA_SHEET);
             log.debug("Лист 'Сбор информации' найден, строк: {}", dataSheet.getPhysicalNumberOfRows());
 
             log.debug("Парсинг данных учеников...");
             List<StudentResult> studentResults = studentDataParser.parseStudentData(
                     dataSheet, maxScores, metadata.getSubject(), metadata.getClassName());
 
-            // 3. ПОЛНОЕ обновление ReportFile из TestMetadata
-            log.debug("Обновление информации о файле...");
-            reportFile.setSubject(metadata.getSubject());
-            reportFile.setClassName(metadata.getClassName());
-            reportFile.setTestDate(metadata.getTestDate());
-            reportFile.setTeacher(metadata.getTeacher());
-            reportFile.setSchoolName(metadata.getSchoolName() != null ? metadata.getSchoolName() : "ГБОУ №7");
-            reportFile.setTestType(metadata.getTestType());
-            reportFile.setComment(metadata.getComment());
-            reportFile.setAcademicYear(metadata.getAcademicYear() != null ? metadata.getAcademicYear() : "2025-2026");
-            reportFile.setTaskCount(maxScores.size());
-            reportFile.setMaxScores(maxScores);
-
-            reportFile.setStudentCount(studentResults.size());
-
-            log.debug("Информация о файле обновлена: заданий={}, учеников={}",
-                    reportFile.getTaskCount(), reportFile.getStudentCount());
-
-            // 4. Установка метаданных для каждого ученика
-            log.debug("Установка метаданных для учеников...");
-            for (StudentResult student : studentResults) {
-                student.setSubject(reportFile.getSubject());
-                student.setClassName(reportFile.getClassName());
-                student.setTestDate(reportFile.getTestDate());
-                student.setTestType(reportFile.getTestType());
-                student.setSchoolName(reportFile.getSchoolName());
-                student.setAcademicYear(reportFile.getAcademicYear());
-
-                // Вычисляем totalScore для каждого студента
-                if (student.getTaskScores() != null) {
-                    int totalScore = JsonScoreUtils.calculateTotalScore(student.getTaskScores());
-                    student.setTotalScore(totalScore);
-
-                    // Вычисляем процент выполнения
-                    if (!maxScores.isEmpty() && reportFile.getMaxTotalScore() > 0) {
-                        double percentage = (totalScore * 100.0) / reportFile.getMaxTotalScore();
-                        student.setPercentageScore(Math.round(percentage * 100.0) / 100.0);
-                    }
-                }
-            }
+            return buildResult(reportFile, metadata, studentResults);
+
+        } catch (Exception e) {
+            return toErrorResult(reportFile, e);
+        }
+    }
+
+    /**
+     * Потоковый парсинг большого файла (XSSF event model) в рамках открытой сессии
+     */
+    private ParseResult parseStreaming(WorkbookSession session, ReportFile reportFile) throws IOException {
+        log.info("Файл {} ({} байт) парсится в потоковом режиме",
+                reportFile.getFile().getName(), reportFile.getFile().length());
+
+        SheetValues infoSheet = streamingStudentDataParser.readSheetValues(session, INFO_SHEET, INFO_SHEET_ROWS);
+        TestMetadata metadata = metadataParser.parseMetadata(infoSheet);
+        logMetadata(metadata);
+
+        List<StudentResult> studentResults = streamingStudentDataParser.parseStudentData(
+                session, DATA_SHEET, metadata.getMaxScores(), metadata.getSubject(), metadata.getClassName());
 
-            // 5. Формирование успешного результата
-            log.info("Файл {} успешно обработан: {} учеников, {} заданий",
-                    reportFile.getFile().getName(), studentResults.size(), maxScores.size());
-            return ParseResult.success(reportFile, studentResults);
+        return buildResult(reportFile, metadata, studentResults);
+    }
+
+    private void logMetadata(TestMetadata metadata) {
+        log.info("Метаданные распарсены: предмет={}, класс={}, дата={}, учитель={}",
+                metadata.getSubject(), metadata.getClassName(),
+                metadata.getTestDate(), metadata.getTeacher());
+    }
 
-        } catch (ValidationException e) {
+    /**
+     * Преобразование исключения парсинга в ParseResult с ошибкой
+     */
+    private ParseResult toErrorResult(ReportFile reportFile, Exception e) {
+        if (e instanceof ValidationException) {
             log.warn("Ошибка валидации в файле {}: {}",
                     reportFile.getFile().getName(), e.getMessage());
             log.debug("ValidationException stacktrace для файла {}",
                     reportFile.getFile().getName(), e);
             return ParseResult.error(reportFile,
                     "Ошибка валидации данных. Проверьте файл:\n" + e.getMessage());
-
-        } catch (Exception e) {
-            log.error("Критическая ошибка парсинга файла {}: {}",
-                    reportFile.getFile().getName(), e.getMessage(), e);
-            return ParseResult.error(reportFile,
-                    "Ошибка парсинга файла " + reportFile.getFile().getName() + ": " + e.getMessage());
         }
+
+        log.error("Критическая ошибка парсинга файла {}: {}",
+                reportFile.getFile().getName(), e.getMessage(), e);
+        return ParseResult.error(reportFile,
+                "Ошибка парсинга файла " + reportFile.getFile().getName() + ": " + e.getMessage());
     }
 
     /**
-     * Проверка валидности Excel файла
+     * Обновление ReportFile и учеников из метаданных, формирование результата
      */
-    private boolean validateExcelFile(ReportFile reportFile) {
-        log.debug("Валидация структуры файла: {}", reportFile.getFile().getName());
+    private ParseResult buildResult(ReportFile reportFile, TestMetadata metadata,
+                                    List<StudentResult> studentResults) {
+        ScoreVector maxScores = metadata.getMaxScores();
+
+        // 3. ПОЛНОЕ обновление ReportFile из TestMetadata
+        log.debug("Обновление информации о файле...");
+        reportFile.setSubject(metadata.getSubject());
+        reportFile.setClassName(metadata.getClassName());
+        reportFile.setTestDate(metadata.getTestDate());
+        reportFile.setTeacher(metadata.getTeacher());
+        reportFile.setSchoolName(metadata.getSchoolName() != null ? metadata.getSchoolName() : "ГБОУ №7");
+        reportFile.setTestType(metadata.getTestType());
+        reportFile.setComment(metadata.getComment());
+        reportFile.setAcademicYear(metadata.getAcademicYear() != null ? metadata.getAcademicYear() : "2025-2026");
+        reportFile.setTaskCount(maxScores.getTaskCount());
+        reportFile.setMaxScores(maxScores);
+
+        reportFile.setStudentCount(studentResults.size());
+
+        log.debug("Информация о файле обновлена: заданий={}, учеников={}",
+                reportFile.getTaskCount(), reportFile.getStudentCount());
+
+        // 4. Установка метаданных для каждого ученика
+        log.debug("Установка метаданных для учеников...");
+        int maxTotalScore = reportFile.getMaxTotalScore();
+        for (StudentResult student : studentResults) {
+            student.setSubject(reportFile.getSubject());
+            student.setClassName(reportFile.getClassName());
+            student.setTestDate(reportFile.getTestDate());
+            student.setTestType(reportFile.getTestType());
+            student.setSchoolName(reportFile.getSchoolName());
+            student.setAcademicYear(reportFile.getAcademicYear());
+
+            // Вычисляем totalScore и процент выполнения (сумма уже посчитана в векторе баллов)
+            ScoreVector scoreVector = student.getScoreVector();
+            if (scoreVector != null) {
+                student.setTotalScore(scoreVector.getTotal());
+                if (maxTotalScore > 0) {
+                    student.setPercentageScore(scoreVector.percentageOf(maxTotalScore));
+                }
+            }
+        }
 
-        try (FileInputStream file = new FileInputStream(reportFile.getFile());
-             Workbook workbook = new XSSFWorkbook(file)) {
+        // 5. Формирование успешного результата
+        log.info("Файл {} успешно обработан: {} учеников, {} заданий",
+                reportFile.getFile().getName(), studentResults.size(), maxScores.getTaskCount());
+        return ParseResult.success(reportFile, studentResults);
+    }
 
-            // Проверяем наличие необходимых листов
-            boolean hasInfoSheet = workbook.getSheet("Информация") != null;
-            boolean hasDataSheet = workbook.getSheet("Сбор информации") != null;
+    /**
+     * Проверка валидности Excel файла (по уже открытой сессии, без повторного чтения книги)
+     */
+    private boolean validateExcelFile(WorkbookSession session) throws IOException {
+        log.debug("Валидация структуры файла: {}", session.getFile().getName());
 
-            log.debug("Результаты валидации: hasInfoSheet={}, hasDataSheet={}",
-                    hasInfoSheet, hasDataSheet);
+        // Проверяем наличие необходимых листов
+        boolean hasInfoSheet = session.hasSheets(INFO_SHEET);
+        boolean hasDataSheet = session.hasSheets(DATA_SHEET);
 
-            return hasInfoSheet && hasDataSheet;
+        log.debug("Результаты валидации: hasInfoSheet={}, hasDataSheet={}",
+                hasInfoSheet, hasDataSheet);
 
-        } catch (Exception e) {
-            log.error("Ошибка при валидации файла {}: {}",
-                    reportFile.getFile().getName(), e.getMessage());
-            return false;
-        }
+        return hasInfoSheet && hasDataSheet;
     }
 
     /**
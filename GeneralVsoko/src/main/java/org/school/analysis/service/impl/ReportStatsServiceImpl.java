@@ -0,0 +1,174 @@
+package org.school.analysis.service.impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.school.analysis.mapper.ReportMapper;
+import org.school.analysis.model.ReportFile;
+import org.school.analysis.model.ScoreVector;
+import org.school.analysis.model.StudentResult;
+import org.school.analysis.model.entity.ReportFileStatsEntity;
+import org.school.analysis.model.entity.TaskStatsEntity;
+import org.school.analysis.repository.ReportFileRepository;
+import org.school.analysis.repository.ReportFileStatsRepository;
+import org.school.analysis.repository.StudentResultRepository;
+import org.school.analysis.service.ReportStatsService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.school.analysis.config.AppConfig.REPORT_STATS_BACKFILL_BATCH_SIZE;
+
+/**
+ * Статистика файла отчета считается один раз при сохранении: данные файла после загрузки не меняются,
+ * поэтому сводки и статистика заданий читают готовые строки report_file_stats / task_stats
+ * вместо агрегации student_results при каждом запросе.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportStatsServiceImpl implements ReportStatsService {
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    private final ReportFileRepository reportFileRepository;
+    private final ReportFileStatsRepository reportFileStatsRepository;
+    private final StudentResultRepository studentResultRepository;
+    private final ReportMapper reportMapper;
+
+    @Override
+    @Transactional
+    public void saveStats(UUID reportFileId, ReportFile reportFile, List<StudentResult> studentResults) {
+        ScoreVector maxScores = reportFile.getMaxScores();
+
+        int presentCount = 0;
+        int absentCount = 0;
+        int[] totals = new int[studentResults.size()];
+        int[][] histograms = new int[maxScores.getTaskCount()][];
+        long[] taskSums = new long[maxScores.getTaskCount()];
+        for (int task = 0; task < histograms.length; task++) {
+            histograms[task] = new int[Math.max(0, maxScores.get(task + 1)) + 1];
+        }
+
+        for (StudentResult student : studentResults) {
+            if (!student.wasPresent()) {
+                if (isAbsent(student.getPresence())) {
+                    absentCount++;
+                }
+                continue;
+            }
+            ScoreVector scores = student.getScoreVector() != null ? student.getScoreVector() : ScoreVector.EMPTY;
+            totals[presentCount++] = student.getTotalScore();
+
+            for (int task = 0; task < histograms.length; task++) {
+                // Баллы выше максимума расширяют гистограмму, отрицательные попадают в 0
+                int score = Math.max(0, scores.get(task + 1));
+                if (score >= histograms[task].length) {
+                    histograms[task] = Arrays.copyOf(histograms[task], score + 1);
+                }
+                histograms[task][score]++;
+                taskSums[task] += score;
+            }
+        }
+
+        entityManager.persist(buildReportStats(reportFileId, studentResults.size(),
+                presentCount, absentCount, maxScores.getTotal(), Arrays.copyOf(totals, presentCount)));
+
+        for (int task = 0; task < histograms.length; task++) {
+            entityManager.persist(TaskStatsEntity.builder()
+                    .reportFileId(reportFileId)
+                    .taskNumber(task + 1)
+                    .maxScore(maxScores.get(task + 1))
+                    .scoreSum(taskSums[task])
+                    .scoreHistogram(histograms[task])
+                    .build());
+        }
+    }
+
+    private ReportFileStatsEntity buildReportStats(UUID reportFileId, int studentCount, int presentCount,
+                                                   int absentCount, int maxTotalScore, int[] totals) {
+        Arrays.sort(totals);
+        long scoreSum = 0;
+        for (int total : totals) {
+            scoreSum += total;
+        }
+        boolean anyPresent = totals.length > 0;
+
+        return ReportFileStatsEntity.builder()
+                .reportFileId(reportFileId)
+                .studentCount(studentCount)
+                .presentCount(presentCount)
+                .absentCount(absentCount)
+                .maxTotalScore(maxTotalScore)
+                .scoreSum(scoreSum)
+                .averageScore(anyPresent ? (double) scoreSum / totals.length : null)
+                .minScore(anyPresent ? totals[0] : null)
+                .maxScore(anyPresent ? totals[totals.length - 1] : null)
+                .p25Score(percentile(totals, 0.25))
+                .medianScore(percentile(totals, 0.5))
+                .p75Score(percentile(totals, 0.75))
+                .p90Score(percentile(totals, 0.9))
+                .build();
+    }
+
+    /**
+     * Перцентиль отсортированного массива с линейной интерполяцией (как percentile_cont)
+     */
+    private static Double percentile(int[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return null;
+        }
+        double position = fraction * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    /**
+     * Отсутствие ученика (написания из отчетов: "Не был", "Отсутствовал", "Отсутствовала")
+     */
+    private static boolean isAbsent(String presence) {
+        if (presence == null) {
+            return false;
+        }
+        String normalized = presence.trim().toLowerCase();
+        return normalized.equals("не был") ||
+                normalized.equals("отсутствовал") ||
+                normalized.equals("отсутствовала");
+    }
+
+    @Override
+    @Transactional
+    @Order(0) // до учета файлов в накопительной статистике (StatsAggregateServiceImpl)
+    @EventListener(ApplicationReadyEvent.class)
+    public int backfillMissingStats() {
+        List<UUID> reportFileIds = reportFileStatsRepository.findReportFileIdsWithoutStats();
+        if (reportFileIds.isEmpty()) {
+            return 0;
+        }
+
+        int processed = 0;
+        for (UUID reportFileId : reportFileIds) {
+            ReportFile reportFile = reportMapper.toModel(reportFileRepository.getReferenceById(reportFileId));
+            List<StudentResult> students = studentResultRepository.findByReportFileId(reportFileId).stream()
+                    .map(reportMapper::toModel)
+                    .toList();
+            saveStats(reportFileId, reportFile, students);
+
+            if (++processed % REPORT_STATS_BACKFILL_BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        log.info("📊 Рассчитана статистика для {} ранее сохраненных файлов", processed);
+        return processed;
+    }
+}
@@ -4,23 +4,30 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 import org.school.analysis.model.entity.ReportFileEntity;
 import org.school.analysis.model.entity.StudentResultEntity;
 import org.school.analysis.mapper.ReportMapper;
 import org.school.analysis.model.ReportFile;
+import org.school.analysis.model.ReportFileSavedEvent;
+import org.school.analysis.model.ScoreVector;
 import org.school.analysis.model.StudentResult;
 import org.school.analysis.repository.ReportFileRepository;
 import org.school.analysis.repository.StudentResultRepository;
+import org.school.analysis.service.FileFingerprintService;
+import org.school.analysis.service.ReportStatsService;
 import org.school.analysis.service.SavedService;
-import org.school.analysis.util.JsonScoreUtils;
+import org.school.analysis.util.PerformanceTracker;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.*;
 
+import static org.school.analysis.config.AppConfig.JDBC_BATCH_INSERT_ENABLED;
+import static org.school.analysis.config.AppConfig.JDBC_BATCH_SIZE;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -32,6 +39,9 @@ public class SavedServiceImpl implements SavedService {
     private final ReportFileRepository reportFileRepository;
     private final StudentResultRepository studentResultRepository;
     private final ReportMapper reportMapper;
+    private final FileFingerprintService fileFingerprintService;
+    private final ReportStatsService reportStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -40,55 +50,61 @@ public class SavedServiceImpl implements SavedService {
                 reportFile.getFileName(), studentResults.size());
 
         try {
-            // 1. Проверка дубликата
-            String fileHash = calculateFileHash(reportFile.getFile());
-            if (reportFileRepository.existsByFileHash(fileHash)) {
+            // 1. Хеш содержимого
+            // Ошибка чтения файла пробрасывается: случайный хеш сломал бы проверку дубликатов
+            String fileHash = reportFile.getFileHash() != null
+                    ? reportFile.getFileHash()
+                    : fileFingerprintService.getContentHash(reportFile.getFile());
+
+            long startNanos = System.nanoTime();
+            Session session = entityManager.unwrap(Session.class);
+            session.setJdbcBatchSize(JDBC_BATCH_INSERT_ENABLED ? JDBC_BATCH_SIZE : 1);
+
+            // 2. Вставка файла с проверкой дубликата одним оператором (ON CONFLICT (file_hash) DO NOTHING):
+            // параллельные загрузчики не гоняются между проверкой и вставкой
+            Optional<ReportFileEntity> savedFile = insertReportFile(reportFile, fileHash, studentResults.size());
+            if (savedFile.isEmpty()) {
                 log.warn("Файл уже был обработан: {}", reportFile.getFileName());
                 return 0;
             }
-
-            // 2. Создаем ReportFileEntity (без ID - будет сгенерирован БД)
-            ReportFileEntity reportFileEntity = reportMapper.toEntity(reportFile);
-            reportFileEntity.setFileHash(fileHash);
-            reportFileEntity.setStudentCount(studentResults.size());
-
-            // 3. Используем entityManager.persist() для новой сущности файла
-            entityManager.persist(reportFileEntity);
-            entityManager.flush(); // Получаем сгенерированный ID
+            ReportFileEntity reportFileEntity = savedFile.get();
 
             log.info("Файл сохранен с ID: {}", reportFileEntity.getId());
 
-            // 4. Подготавливаем студентов
-            Map<Integer, Integer> maxScoresMap = reportFile.getMaxScores();
-            int maxTotalScore = calculateMaxTotalScore(maxScoresMap);
-
-            List<StudentResultEntity> studentEntities = new ArrayList<>();
+            // 3. Подготавливаем и сохраняем студентов (сумма и процент берутся из вектора баллов, без разбора JSON).
+            // При hibernate.order_inserts INSERT-ы группируются в пакеты по JDBC_BATCH_SIZE строк
+            int maxTotalScore = reportFile.getMaxTotalScore();
+            int savedCount = 0;
 
             for (StudentResult student : studentResults) {
                 StudentResultEntity entity = reportMapper.toEntity(student, reportFileEntity);
 
-                if (entity.getTaskScoresJson() != null && maxTotalScore > 0) {
-                    Map<Integer, Integer> taskScores = JsonScoreUtils.jsonToMap(entity.getTaskScoresJson());
-                    if (taskScores != null && !taskScores.isEmpty()) {
-                        int totalScore = JsonScoreUtils.calculateTotalScore(taskScores);
-                        double percentage = (totalScore * 100.0) / maxTotalScore;
-                        entity.setPercentageScore(Math.round(percentage * 100.0) / 100.0);
-                    }
+                ScoreVector scoreVector = student.getScoreVector();
+                if (scoreVector != null && !scoreVector.isEmpty() && maxTotalScore > 0) {
+                    entity.setPercentageScore(scoreVector.percentageOf(maxTotalScore));
                 }
 
-                studentEntities.add(entity);
-            }
-
-            // 5. Сохраняем студентов через entityManager.persist()
-            for (StudentResultEntity entity : studentEntities) {
                 entityManager.persist(entity);
+                if (++savedCount % JDBC_BATCH_SIZE == 0) {
+                    entityManager.flush();
+                }
             }
 
+            // 4. Статистика файла и заданий - в той же транзакции, что и ученики
+            reportStatsService.saveStats(reportFileEntity.getId(), reportFile, studentResults);
+
+            // Обработчики события (накопительная статистика) выполняются в этой же транзакции
+            eventPublisher.publishEvent(new ReportFileSavedEvent(reportFileEntity.getId(), reportFile, studentResults));
+
+            // 5. Отправляем остаток пакета и очищаем контекст: сохраненные сущности больше не нужны,
+            // а в общей транзакции партии контекст иначе рос бы от файла к файлу
             entityManager.flush();
+            entityManager.clear();
 
+            PerformanceTracker.recordStudentInserts(savedCount, Duration.ofNanos(System.nanoTime() - startNanos));
             log.info("✅ Сохранено {} студентов из файла {}",
-                    studentEntities.size(), reportFile.getFileName());
-            return studentEntities.size();
+                    savedCount, reportFile.getFileName());
+            return savedCount;
 
         } catch (Exception e) {
             log.error("❌ Ошибка сохранения файла {}: {}",
@@ -97,32 +113,26 @@ public class SavedServiceImpl implements SavedService {
         }
     }
 
-    private int calculateMaxTotalScore(Map<Integer, Integer> maxScoresMap) {
-        if (maxScoresMap == null || maxScoresMap.isEmpty()) {
-            return 0;
-        }
-        return maxScoresMap.values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+    /**
+     * Вставить строку report_files, если файла с таким хешем еще нет
+     *
+     * @return ссылка на сохраненный файл (для внешнего ключа учеников) или пусто для дубликата
+     */
+    private Optional<ReportFileEntity> insertReportFile(ReportFile reportFile, String fileHash, int studentCount) {
+        ReportFileEntity reportFileEntity = reportMapper.toEntity(reportFile);
+        reportFileEntity.setFileHash(fileHash);
+        reportFileEntity.setStudentCount(studentCount);
+        return reportFileRepository.insertIfAbsent(reportFileEntity)
+                .map(id -> entityManager.getReference(ReportFileEntity.class, id));
     }
 
-    private String calculateFileHash(File file) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] fileBytes = Files.readAllBytes(file.toPath());
-            byte[] hashBytes = digest.digest(fileBytes);
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (Exception e) {
-            log.error("Ошибка вычисления хеша файла: {}", e.getMessage());
-            return UUID.randomUUID().toString().replace("-", "");
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> findExistingFileHashes(Collection<String> fileHashes) {
+        if (fileHashes == null || fileHashes.isEmpty()) {
+            return Set.of();
         }
+        return reportFileRepository.findExistingFileHashes(fileHashes);
     }
 
     @Override
@@ -0,0 +1,209 @@
+package org.school.analysis.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.school.analysis.analytics.RunningStats;
+import org.school.analysis.mapper.ReportMapper;
+import org.school.analysis.model.ReportFile;
+import org.school.analysis.model.ReportFileSavedEvent;
+import org.school.analysis.model.ScoreVector;
+import org.school.analysis.model.StatsDimension;
+import org.school.analysis.model.StudentResult;
+import org.school.analysis.model.entity.StatsAggregateEntity;
+import org.school.analysis.repository.ReportFileRepository;
+import org.school.analysis.repository.ReportFileStatsRepository;
+import org.school.analysis.repository.StatsAggregateRepository;
+import org.school.analysis.repository.StudentResultRepository;
+import org.school.analysis.service.StatsAggregateService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.school.analysis.config.AppConfig.*;
+
+/**
+ * Накопительная статистика школы за учебный год по предметам, классам, учителям и заданиям тестов.
+ * Задания накапливаются по тесту (предмет, класс, тип теста): номер задания в разных тестах
+ * одного предмета означает разные задания.
+ * При сохранении файла его статистика считается отдельно (Уэлфорд + гистограмма) и сливается
+ * с сохраненной строкой stats_aggregates, поэтому стоимость обновления зависит только от нового файла.
+ * Строки блокируются в порядке разрезов StatsDimension, что исключает взаимные блокировки
+ * параллельных сохранений. Ранее сохраненные файлы учитываются при старте пакетами
+ * по REPORT_STATS_BACKFILL_BATCH_SIZE, каждый пакет в своей транзакции: блокировки строк
+ * держатся только до конца пакета и не мешают сохранению новых файлов.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatsAggregateServiceImpl implements StatsAggregateService {
+
+    private final StatsAggregateRepository statsAggregateRepository;
+    private final ReportFileStatsRepository reportFileStatsRepository;
+    private final ReportFileRepository reportFileRepository;
+    private final StudentResultRepository studentResultRepository;
+    private final ReportMapper reportMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    @Transactional
+    @EventListener
+    public void onReportFileSaved(ReportFileSavedEvent event) {
+        if (!STATS_AGGREGATES_ENABLED) {
+            return;
+        }
+        applyReportFile(event.reportFileId(), event.reportFile(), event.studentResults());
+    }
+
+    private void applyReportFile(UUID reportFileId, ReportFile reportFile, List<StudentResult> studentResults) {
+        String schoolName = reportFile.getSchoolName();
+        String academicYear = reportFile.getAcademicYear();
+
+        if (schoolName != null && academicYear != null) {
+            ScoreVector maxScores = reportFile.getMaxScores();
+            int maxTotalScore = maxScores.getTotal();
+
+            RunningStats percentStats = new RunningStats();
+            RunningStats[] taskStats = new RunningStats[maxScores.getTaskCount()];
+            for (int task = 0; task < taskStats.length; task++) {
+                taskStats[task] = new RunningStats();
+            }
+
+            for (StudentResult student : studentResults) {
+                if (!student.wasPresent()) {
+                    continue;
+                }
+                ScoreVector scores = student.getScoreVector() != null ? student.getScoreVector() : ScoreVector.EMPTY;
+                Double percentage = student.getPercentageScore() != null
+                        ? student.getPercentageScore()
+                        : scores.percentageOf(maxTotalScore);
+                if (percentage != null) {
+                    percentStats.add(percentage, percentBucket(percentage));
+                }
+                for (int task = 0; task < taskStats.length; task++) {
+                    int score = scores.get(task + 1);
+                    taskStats[task].add(score, score);
+                }
+            }
+
+            // Порядок разрезов - порядок блокировки строк
+            RunningStats[] fileStats = {percentStats};
+            merge(schoolName, academicYear, StatsDimension.SUBJECT, reportFile.getSubject(), 0, fileStats);
+            merge(schoolName, academicYear, StatsDimension.CLASS, reportFile.getClassName(), 0, fileStats);
+            merge(schoolName, academicYear, StatsDimension.TEACHER, reportFile.getTeacher(), 0, fileStats);
+            merge(schoolName, academicYear, StatsDimension.TASK, StatsDimension.testKey(reportFile.getSubject(),
+                    reportFile.getClassName(), reportFile.getTestType()), 1, taskStats);
+        } else {
+            log.warn("Файл {} без школы или учебного года не учтен в накопительной статистике",
+                    reportFile.getFileName());
+        }
+
+        reportFileStatsRepository.findById(reportFileId)
+                .ifPresent(stats -> stats.setAggregated(true));
+    }
+
+    /**
+     * Слить статистику файла со строками разреза: statsByTask[i] относится к заданию firstTask + i
+     */
+    private void merge(String schoolName, String academicYear, StatsDimension dimension, String dimensionKey,
+                       int firstTask, RunningStats[] statsByTask) {
+        if (dimensionKey == null || dimensionKey.isBlank() || statsByTask.length == 0) {
+            return;
+        }
+
+        statsAggregateRepository.insertMissing(schoolName, academicYear, dimension.name(), dimensionKey,
+                firstTask, firstTask + statsByTask.length - 1);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (StatsAggregateEntity aggregate
+                : statsAggregateRepository.lockAggregates(schoolName, academicYear, dimension, dimensionKey)) {
+            int index = aggregate.getTaskNumber() - firstTask;
+            if (index < 0 || index >= statsByTask.length || statsByTask[index].getCount() == 0) {
+                continue;
+            }
+            RunningStats merged = toRunningStats(aggregate);
+            merged.merge(statsByTask[index]);
+
+            aggregate.setSampleCount(merged.getCount());
+            aggregate.setMean(merged.getMean());
+            aggregate.setM2(merged.getM2());
+            aggregate.setMinValue(merged.getMin());
+            aggregate.setMaxValue(merged.getMax());
+            aggregate.setHistogram(merged.getHistogram());
+            aggregate.setUpdatedAt(now);
+        }
+    }
+
+    /**
+     * Корзина гистограммы процента выполнения (100% - отдельная последняя корзина)
+     */
+    private static int percentBucket(double percentage) {
+        int lastBucket = 100 / STATS_PERCENT_BUCKET_WIDTH;
+        return Math.max(0, Math.min(lastBucket, (int) (percentage / STATS_PERCENT_BUCKET_WIDTH)));
+    }
+
+    private static RunningStats toRunningStats(StatsAggregateEntity aggregate) {
+        return RunningStats.of(aggregate.getSampleCount(), aggregate.getMean(), aggregate.getM2(),
+                aggregate.getMinValue(), aggregate.getMaxValue(), aggregate.getHistogram());
+    }
+
+    @Override
+    @Order(1)
+    @EventListener(ApplicationReadyEvent.class)
+    public int backfillMissingAggregates() {
+        if (!STATS_AGGREGATES_ENABLED) {
+            return 0;
+        }
+        List<UUID> reportFileIds = reportFileStatsRepository.findReportFileIdsNotAggregated();
+        if (reportFileIds.isEmpty()) {
+            return 0;
+        }
+
+        // Пакет фиксируется сразу: при сбое уже учтенные файлы не пересчитываются (отметка aggregated)
+        for (int from = 0; from < reportFileIds.size(); from += REPORT_STATS_BACKFILL_BATCH_SIZE) {
+            List<UUID> batch = reportFileIds.subList(from,
+                    Math.min(from + REPORT_STATS_BACKFILL_BATCH_SIZE, reportFileIds.size()));
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(this::applySavedReportFile));
+        }
+        log.info("📊 В накопительной статистике учтено {} ранее сохраненных файлов", reportFileIds.size());
+        return reportFileIds.size();
+    }
+
+    private void applySavedReportFile(UUID reportFileId) {
+        ReportFile reportFile = reportMapper.toModel(reportFileRepository.getReferenceById(reportFileId));
+        List<StudentResult> students = studentResultRepository.findByReportFileId(reportFileId).stream()
+                .map(reportMapper::toModel)
+                .toList();
+        applyReportFile(reportFileId, reportFile, students);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, RunningStats> getAggregates(String schoolName, String academicYear, StatsDimension dimension) {
+        Map<String, RunningStats> aggregates = new LinkedHashMap<>();
+        for (StatsAggregateEntity aggregate : statsAggregateRepository
+                .findBySchoolNameAndAcademicYearAndDimensionOrderByDimensionKeyAscTaskNumberAsc(
+                        schoolName, academicYear, dimension)) {
+            aggregates.put(aggregate.getDimensionKey(), toRunningStats(aggregate));
+        }
+        return aggregates;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Map<Integer, RunningStats>> getTaskAggregates(String schoolName, String academicYear) {
+        Map<String, Map<Integer, RunningStats>> aggregates = new LinkedHashMap<>();
+        for (StatsAggregateEntity aggregate : statsAggregateRepository
+                .findBySchoolNameAndAcademicYearAndDimensionOrderByDimensionKeyAscTaskNumberAsc(
+                        schoolName, academicYear, StatsDimension.TASK)) {
+            aggregates.computeIfAbsent(aggregate.getDimensionKey(), key -> new TreeMap<>())
+                    .put(aggregate.getTaskNumber(), toRunningStats(aggregate));
+        }
+        return aggregates;
+    }
+}
@@ -1,6 +1,5 @@
 package org.school.analysis.service.impl.report;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -14,9 +13,9 @@ import org.apache.poi.xssf.usermodel.XSSFChart;
 import org.apache.poi.xssf.usermodel.XSSFColor;
 import org.apache.poi.xssf.usermodel.XSSFDrawing;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.school.analysis.analytics.AnalyticsCube;
 import org.school.analysis.model.dto.TaskStatisticsDto;
 import org.school.analysis.model.dto.TestSummaryDto;
-import org.school.analysis.service.AnalysisService;
 import org.school.analysis.service.ComparativeReportService;
 import org.springframework.stereotype.Service;
 
@@ -26,16 +25,13 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ComparativeReportServiceImpl extends ExcelReportBase implements ComparativeReportService {
 
-    private final AnalysisService analysisService;
-
     @Override
-    public File generateEgkrEgeComparativeReport(String school, String currentAcademicYear) {
+    public File generateEgkrEgeComparativeReport(AnalyticsCube cube) {
         try {
-            List<TestSummaryDto> allTests = analysisService.getAllTestsSummary(school, currentAcademicYear);
+            List<TestSummaryDto> allTests = cube.getTestSummaries();
             List<ComparisonGroup> groups = buildGroups(allTests);
 
             if (groups.isEmpty()) {
@@ -48,12 +44,12 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
                 createSummarySheet(workbook, sheetNames);
 
                 for (Map.Entry<ComparisonGroup, String> entry : sheetNames.entrySet()) {
-                    createComparisonSheet(workbook, entry.getKey(), entry.getValue());
+                    createComparisonSheet(workbook, entry.getKey(), entry.getValue(), cube);
                 }
 
                 return saveWorkbook(
                         workbook,
-                        createReportsFolder(school),
+                        createReportsFolder(cube.getSchoolName()),
                         "ЕГКР_ЕГЭ_сравнение.xlsx"
                 );
             }
@@ -64,9 +60,9 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
     }
 
     @Override
-    public File generateEgkrEgeSubjectComparativeReport(String school, String currentAcademicYear) {
+    public File generateEgkrEgeSubjectComparativeReport(AnalyticsCube cube) {
         try {
-            List<TestSummaryDto> allTests = analysisService.getAllTestsSummary(school, currentAcademicYear);
+            List<TestSummaryDto> allTests = cube.getTestSummaries();
             List<SubjectComparisonGroup> subjectGroups = buildSubjectGroups(allTests);
 
             if (subjectGroups.isEmpty()) {
@@ -78,12 +74,12 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
                 Map<SubjectComparisonGroup, String> sheetNames = buildUniqueSubjectSheetNames(subjectGroups);
                 createSubjectSummarySheet(workbook, sheetNames);
                 for (Map.Entry<SubjectComparisonGroup, String> entry : sheetNames.entrySet()) {
-                    createSubjectComparisonSheet(workbook, entry.getKey(), entry.getValue());
+                    createSubjectComparisonSheet(workbook, entry.getKey(), entry.getValue(), cube);
                 }
 
                 return saveWorkbook(
                         workbook,
-                        createReportsFolder(school),
+                        createReportsFolder(cube.getSchoolName()),
                         "ЕГКР_ЕГЭ_сравнение_по_предметам.xlsx"
                 );
             }
@@ -185,7 +181,8 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
         }
     }
 
-    private void createSubjectComparisonSheet(XSSFWorkbook workbook, SubjectComparisonGroup group, String sheetName) {
+    private void createSubjectComparisonSheet(XSSFWorkbook workbook, SubjectComparisonGroup group, String sheetName,
+                                              AnalyticsCube cube) {
         Sheet sheet = workbook.createSheet(sheetName);
         CellStyle titleStyle = createTitleStyle(workbook);
         CellStyle headerStyle = getTableHeaderStyle(workbook);
@@ -228,7 +225,7 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
             xssfSheet.setRepeatingRows(new CellRangeAddress(2, 2, -1, -1));
         }
 
-        Map<String, LinkedHashMap<String, Map<Integer, Double>>> typeSeries = buildTaskSeriesByType(group.classes());
+        Map<String, LinkedHashMap<String, Map<Integer, Double>>> typeSeries = buildTaskSeriesByType(group.classes(), cube);
         int chartTop = tableEndRow + 3;
         chartTop = createPerTypeTaskCharts(sheet, typeSeries, chartTop);
         chartTop = createAverageTaskChart(sheet, typeSeries, chartTop);
@@ -384,15 +381,16 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
         chart.plot(data);
     }
 
-    private Map<String, LinkedHashMap<String, Map<Integer, Double>>> buildTaskSeriesByType(List<ClassComparison> classes) {
+    private Map<String, LinkedHashMap<String, Map<Integer, Double>>> buildTaskSeriesByType(
+            List<ClassComparison> classes, AnalyticsCube cube) {
         LinkedHashMap<String, Map<Integer, Double>> december = new LinkedHashMap<>();
         LinkedHashMap<String, Map<Integer, Double>> spring = new LinkedHashMap<>();
         LinkedHashMap<String, Map<Integer, Double>> ege = new LinkedHashMap<>();
 
         for (ClassComparison cc : classes) {
-            appendSeries(december, cc.className(), cc.egkrDecember());
-            appendSeries(spring, cc.className(), cc.egkrSpring());
-            appendSeries(ege, cc.className(), cc.ege());
+            appendSeries(december, cc.className(), cc.egkrDecember(), cube);
+            appendSeries(spring, cc.className(), cc.egkrSpring(), cube);
+            appendSeries(ege, cc.className(), cc.ege(), cube);
         }
 
         LinkedHashMap<String, LinkedHashMap<String, Map<Integer, Double>>> result = new LinkedHashMap<>();
@@ -404,11 +402,12 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
         return result;
     }
 
-    private void appendSeries(Map<String, Map<Integer, Double>> bucket, String className, TestSummaryDto test) {
+    private void appendSeries(Map<String, Map<Integer, Double>> bucket, String className, TestSummaryDto test,
+                              AnalyticsCube cube) {
         if (test == null || test.getReportFileId() == null) {
             return;
         }
-        Map<Integer, TaskStatisticsDto> stats = analysisService.getTaskStatistics(test.getReportFileId());
+        Map<Integer, TaskStatisticsDto> stats = cube.getTaskStatistics(test.getReportFileId());
         if (stats.isEmpty()) {
             return;
         }
@@ -583,7 +582,8 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
         }
     }
 
-    private void createComparisonSheet(XSSFWorkbook workbook, ComparisonGroup group, String sheetName) {
+    private void createComparisonSheet(XSSFWorkbook workbook, ComparisonGroup group, String sheetName,
+                                       AnalyticsCube cube) {
         Sheet sheet = workbook.createSheet(sheetName);
         CellStyle titleStyle = createTitleStyle(workbook);
         CellStyle headerStyle = getTableHeaderStyle(workbook);
@@ -631,7 +631,7 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
                     headerStyle);
         }
 
-        Map<Integer, List<Double>> taskData = buildTaskComparisonData(group.tests());
+        Map<Integer, List<Double>> taskData = buildTaskComparisonData(group.tests(), cube);
         int row = tableStart + 1;
         for (Map.Entry<Integer, List<Double>> entry : taskData.entrySet()) {
             Row r = sheet.createRow(row++);
@@ -651,9 +651,9 @@ public class ComparativeReportServiceImpl extends ExcelReportBase implements Com
         applyPrintLayout(sheet);
     }
 
-    private Map<Integer, List<Double>> buildTaskComparisonData(List<TestSummaryDto> tests) {
+    private Map<Integer, List<Double>> buildTaskComparisonData(List<TestSummaryDto> tests, AnalyticsCube cube) {
         List<Map<Integer, TaskStatisticsDto>> statsByTest = tests.stream()
-                .map(t -> analysisService.getTaskStatistics(t.getReportFileId()))
+                .map(t -> cube.getTaskStatistics(t.getReportFileId()))
                 .collect(Collectors.toList());
 
         Set<Integer> allTasks = new TreeSet<>();
@@ -434,9 +434,8 @@ public class DetailReportGenerator extends ExcelReportBase {
         // Если статистики нет, определяем из данных студентов
         if (maxTaskNumber == 0) {
             for (StudentDetailedResultDto student : studentResults) {
-                if (student.getTaskScores() != null && !student.getTaskScores().isEmpty()) {
-                    int studentMax = Collections.max(student.getTaskScores().keySet());
-                    maxTaskNumber = Math.max(maxTaskNumber, studentMax);
+                if (student.getTaskScores() != null) {
+                    maxTaskNumber = Math.max(maxTaskNumber, student.getTaskScores().getTaskCount());
                 }
             }
         }
@@ -574,12 +573,8 @@ public class DetailReportGenerator extends ExcelReportBase {
             for (int taskNum = 1; taskNum <= maxTaskNumber; taskNum++) {
                 Cell scoreCell = row.createCell(5 + taskNum); // 5 базовых столбцов + номер задания
 
-                if (student.getTaskScores() != null && student.getTaskScores().containsKey(taskNum)) {
-                    Integer score = student.getTaskScores().get(taskNum);
-                    scoreCell.setCellValue(score != null ? score : 0);
-                } else {
-                    scoreCell.setCellValue(0);
-                }
+                // Задание вне вектора баллов дает 0
+                scoreCell.setCellValue(student.getTaskScores() != null ? student.getTaskScores().get(taskNum) : 0);
 
                 scoreCell.setCellStyle(dataStyle);
             }
@@ -20,9 +20,9 @@ public class ExcelReportServiceImpl implements ExcelReportService {
     private final TeacherReportGenerator teacherReportGenerator;
 
     @Override
-    public File generateSummaryReport(List<TestSummaryDto> tests, String schoolName) {
+    public File generateSummaryReport(List<TestSummaryDto> tests, String schoolName, YearStatsDto yearStats) {
         log.info("Генерация сводного отчета для {} тестов", tests.size());
-        return summaryReportGenerator.generateSummaryReport(tests, schoolName);
+        return summaryReportGenerator.generateSummaryReport(tests, schoolName, yearStats);
     }
 
     @Override
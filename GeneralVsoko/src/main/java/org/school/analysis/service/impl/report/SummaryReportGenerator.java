@@ -4,7 +4,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.school.analysis.analytics.RunningStats;
 import org.school.analysis.model.dto.TestSummaryDto;
+import org.school.analysis.model.dto.YearStatsDto;
 import org.school.analysis.util.DateTimeFormatters;
 import org.springframework.stereotype.Component;
 
@@ -13,12 +15,20 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Component
 @Slf4j
 public class SummaryReportGenerator extends ExcelReportBase {
 
-    public File generateSummaryReport(List<TestSummaryDto> tests, String schoolName) {
+    private static final String[] YEAR_STATS_HEADERS = {
+            "Учеников", "Средний % выполнения", "Ст. отклонение, %", "Мин. %", "Макс. %"
+    };
+    private static final String[] TASK_STATS_HEADERS = {
+            "Задание", "Результатов", "Средний балл", "Ст. отклонение", "Мин. балл", "Макс. балл"
+    };
+
+    public File generateSummaryReport(List<TestSummaryDto> tests, String schoolName, YearStatsDto yearStats) {
         log.info("Генерация сводного отчета для {} тестов", tests.size());
 
         try {
@@ -31,6 +41,10 @@ public class SummaryReportGenerator extends ExcelReportBase {
                 fillData(sheet, workbook, tests);
                 optimizeColumnWidths(sheet, 18);
 
+                if (yearStats != null) {
+                    createYearStatsSheet(workbook, yearStats);
+                }
+
                 return saveWorkbook(workbook, reportsPath, "Свод всех работ.xlsx");
             }
 
@@ -193,6 +207,92 @@ public class SummaryReportGenerator extends ExcelReportBase {
         return columnName.toString();
     }
 
+    /**
+     * Лист накопительной статистики за год: процент выполнения по предметам, классам и учителям
+     * и баллы по заданиям тестов (по всем присутствовавшим ученикам, без пересчета по результатам)
+     */
+    private void createYearStatsSheet(Workbook workbook, YearStatsDto yearStats) {
+        Sheet sheet = workbook.createSheet("Итоги года");
+
+        createMergedTitle(sheet, "НАКОПИТЕЛЬНАЯ СТАТИСТИКА ЗА УЧЕБНЫЙ ГОД",
+                getTitleStyle(workbook), 0, 0, TASK_STATS_HEADERS.length);
+
+        int rowNum = 2;
+        rowNum = createPercentStatsTable(sheet, workbook, "Предмет", yearStats.getSubjects(), rowNum);
+        rowNum = createPercentStatsTable(sheet, workbook, "Класс", yearStats.getClasses(), rowNum);
+        rowNum = createPercentStatsTable(sheet, workbook, "Учитель", yearStats.getTeachers(), rowNum);
+        createTaskStatsTable(sheet, workbook, yearStats.getTasksByTest(), rowNum);
+
+        optimizeColumnWidths(sheet, TASK_STATS_HEADERS.length + 1);
+    }
+
+    private int createPercentStatsTable(Sheet sheet, Workbook workbook, String keyHeader,
+                                        Map<String, RunningStats> statsByKey, int rowNum) {
+        if (statsByKey == null || statsByKey.isEmpty()) {
+            return rowNum;
+        }
+        CellStyle headerStyle = getTableHeaderStyle(workbook);
+        CellStyle normalStyle = getStyle(workbook, StyleType.NORMAL);
+        CellStyle centeredStyle = getStyle(workbook, StyleType.CENTERED);
+        CellStyle percentStyle = getStyle(workbook, StyleType.PERCENT);
+
+        Row headerRow = sheet.createRow(rowNum++);
+        setCellValue(headerRow, 0, keyHeader, headerStyle);
+        for (int i = 0; i < YEAR_STATS_HEADERS.length; i++) {
+            setCellValue(headerRow, i + 1, YEAR_STATS_HEADERS[i], headerStyle);
+        }
+
+        for (Map.Entry<String, RunningStats> entry : statsByKey.entrySet()) {
+            RunningStats stats = entry.getValue();
+            if (stats.getCount() == 0) {
+                continue;
+            }
+            Row row = sheet.createRow(rowNum++);
+            setCellValue(row, 0, entry.getKey(), normalStyle);
+            setCellValue(row, 1, stats.getCount(), centeredStyle);
+            // Проценты хранятся в диапазоне 0..100, стиль ячейки - доля
+            setCellValue(row, 2, stats.getMean() / 100.0, percentStyle);
+            setCellValue(row, 3, stats.getStandardDeviation() / 100.0, percentStyle);
+            setCellValue(row, 4, stats.getMin() / 100.0, percentStyle);
+            setCellValue(row, 5, stats.getMax() / 100.0, percentStyle);
+        }
+        return addEmptyRows(sheet, rowNum, SECTION_SPACING);
+    }
+
+    private void createTaskStatsTable(Sheet sheet, Workbook workbook,
+                                      Map<String, Map<Integer, RunningStats>> tasksByTest, int rowNum) {
+        if (tasksByTest == null || tasksByTest.isEmpty()) {
+            return;
+        }
+        CellStyle headerStyle = getTableHeaderStyle(workbook);
+        CellStyle normalStyle = getStyle(workbook, StyleType.NORMAL);
+        CellStyle centeredStyle = getStyle(workbook, StyleType.CENTERED);
+        CellStyle decimalStyle = getStyle(workbook, StyleType.DECIMAL);
+
+        Row headerRow = sheet.createRow(rowNum++);
+        setCellValue(headerRow, 0, "Тест", headerStyle);
+        for (int i = 0; i < TASK_STATS_HEADERS.length; i++) {
+            setCellValue(headerRow, i + 1, TASK_STATS_HEADERS[i], headerStyle);
+        }
+
+        for (Map.Entry<String, Map<Integer, RunningStats>> test : tasksByTest.entrySet()) {
+            for (Map.Entry<Integer, RunningStats> task : test.getValue().entrySet()) {
+                RunningStats stats = task.getValue();
+                if (stats.getCount() == 0) {
+                    continue;
+                }
+                Row row = sheet.createRow(rowNum++);
+                setCellValue(row, 0, test.getKey(), normalStyle);
+                setCellValue(row, 1, task.getKey(), centeredStyle);
+                setCellValue(row, 2, stats.getCount(), centeredStyle);
+                setCellValue(row, 3, stats.getMean(), decimalStyle);
+                setCellValue(row, 4, stats.getStandardDeviation(), decimalStyle);
+                setCellValue(row, 5, stats.getMin(), centeredStyle);
+                setCellValue(row, 6, stats.getMax(), centeredStyle);
+            }
+        }
+    }
+
     private void fillData(Sheet sheet, Workbook workbook, List<TestSummaryDto> tests) {
         // 1. СОЗДАЕМ СТИЛИ ОДИН РАЗ (из кэша)
         CellStyle normalStyle = getStyle(workbook, StyleType.NORMAL);
@@ -11,6 +11,11 @@ import java.time.format.DateTimeParseException;
  */
 public class ExcelParser {
 
+    /**
+     * Признак отсутствия целого значения в примитивных методах чтения (вместо null)
+     */
+    public static final int NO_INT = Integer.MIN_VALUE;
+
     private static final DateTimeFormatter[] DATE_FORMATS = {
             DateTimeFormatter.ofPattern("dd.MM.yyyy"),
             DateTimeFormatter.ofPattern("dd/MM/yyyy"),
@@ -117,27 +122,147 @@ public class ExcelParser {
     }
 
     public static Integer getCellValueAsInteger(Cell cell, Integer defaultValue) {
-        String stringValue = getCellValueAsString(cell);
-        if (stringValue == null || stringValue.trim().isEmpty()) {
-            return defaultValue;
+        return parseInteger(getCellValueAsString(cell), defaultValue);
+    }
+
+    /**
+     * Преобразование строкового значения ячейки в целое число
+     * (общая логика для DOM и потокового парсинга)
+     */
+    public static Integer parseInteger(String stringValue, Integer defaultValue) {
+        int value = parseIntOrSentinel(stringValue);
+        return value != NO_INT ? value : defaultValue;
+    }
+
+    // ========== ПРИМИТИВНОЕ ЧТЕНИЕ БЕЗ ИСКЛЮЧЕНИЙ (горячий цикл по строкам учеников) ==========
+
+    /**
+     * Целое значение ячейки без промежуточной строки и упаковки.
+     * Дробные числа округляются, даты, логические значения и нечисловой текст дают NO_INT.
+     */
+    public static int readIntOrSentinel(Cell cell) {
+        if (cell == null) {
+            return NO_INT;
         }
 
-        try {
-            // Убираем возможную дробную часть
-            stringValue = stringValue.replaceAll("\\.0+$", "");
-            // Заменяем запятые на точки для десятичных чисел
-            stringValue = stringValue.replace(",", ".");
+        switch (cell.getCellType()) {
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return NO_INT;
+                }
+                return roundToInt(cell.getNumericCellValue());
+
+            case STRING:
+                return parseIntOrSentinel(cell.getStringCellValue());
+
+            case FORMULA:
+                switch (cell.getCachedFormulaResultType()) {
+                    case NUMERIC:
+                        return roundToInt(cell.getNumericCellValue());
+                    case STRING:
+                        return parseIntOrSentinel(cell.getStringCellValue());
+                    default:
+                        return NO_INT;
+                }
+
+            default:
+                return NO_INT;
+        }
+    }
 
-            if (stringValue.contains(".")) {
-                // Если десятичное, округляем
-                return (int) Math.round(Double.parseDouble(stringValue));
-            } else {
-                // Целое число
-                return Integer.parseInt(stringValue);
+    /**
+     * Приведение прочитанного значения к баллу: пустая или нечисловая ячейка - 0, значение выше
+     * известного максимума (max >= 0) обрезается до максимума (общая логика для DOM и потокового парсинга)
+     */
+    public static int clampScore(int value, int max) {
+        int score = value != NO_INT ? value : 0;
+        return max >= 0 && score > max ? max : score;
+    }
+
+    /**
+     * Целое число из текста без исключений: "5", " 5 ", "5.0", "4,6" (округляется до 5).
+     * Нечисловой текст дает NO_INT.
+     */
+    public static int parseIntOrSentinel(CharSequence value) {
+        if (value == null) {
+            return NO_INT;
+        }
+
+        int start = 0;
+        int end = value.length();
+        while (start < end && Character.isWhitespace(value.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) end--;
+        if (start == end) {
+            return NO_INT;
+        }
+
+        boolean negative = false;
+        char first = value.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+        }
+
+        int separator = -1;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '.' || c == ',') {
+                if (separator >= 0) {
+                    return NO_INT;
+                }
+                separator = i;
+            } else if (c < '0' || c > '9') {
+                return NO_INT;
             }
-        } catch (NumberFormatException e) {
-            return defaultValue;
         }
+
+        int wholeEnd = separator >= 0 ? separator : end;
+        if (wholeEnd - start > 10 || (start == wholeEnd && (separator < 0 || separator == end - 1))) {
+            return NO_INT;
+        }
+
+        long whole = 0;
+        for (int i = start; i < wholeEnd; i++) {
+            whole = whole * 10 + (value.charAt(i) - '0');
+        }
+
+        // Округление как Math.round: половина - вверх (для отрицательных - к нулю)
+        if (separator >= 0 && separator < end - 1) {
+            int firstDigit = value.charAt(separator + 1) - '0';
+            boolean restNonZero = false;
+            for (int i = separator + 2; i < end && !restNonZero; i++) {
+                restNonZero = value.charAt(i) != '0';
+            }
+            if (negative ? firstDigit > 5 || (firstDigit == 5 && restNonZero) : firstDigit >= 5) {
+                whole++;
+            }
+        }
+
+        long result = negative ? -whole : whole;
+        return result > Integer.MIN_VALUE && result <= Integer.MAX_VALUE ? (int) result : NO_INT;
+    }
+
+    /**
+     * Строго целое число из текста (только знак и цифры), нечисловой текст дает NO_INT
+     */
+    public static int parseWholeNumberOrSentinel(CharSequence value) {
+        if (value == null) {
+            return NO_INT;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' || c == ',') {
+                return NO_INT;
+            }
+        }
+        return parseIntOrSentinel(value);
+    }
+
+    private static int roundToInt(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return NO_INT;
+        }
+        return value == Math.floor(value) ? (int) value : (int) Math.round(value);
     }
 
     /**
@@ -0,0 +1,61 @@
+package org.school.analysis.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.school.analysis.config.AppConfig.HASH_BUFFER_SIZE_BYTES;
+
+/**
+ * Потоковое вычисление SHA-256 содержимого файла.
+ * Файл не читается в память целиком: содержимое любого размера читается через FileChannel
+ * в переиспользуемый direct-буфер потока. Отображение в память не используется: на Windows
+ * живой MappedByteBuffer держит файл заблокированным до сборки мусора, и последующее
+ * перемещение файла в папку предмета не проходит.
+ */
+@UtilityClass
+public class FileHashUtils {
+
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(HASH_BUFFER_SIZE_BYTES));
+
+    /**
+     * SHA-256 содержимого файла в hex (64 символа)
+     *
+     * @throws IOException если файл не удалось прочитать
+     */
+    public static String sha256Hex(File file) throws IOException {
+        MessageDigest digest = newSha256();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            digestBuffered(channel, digest);
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void digestBuffered(FileChannel channel, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        }
+    }
+}
@@ -1,16 +1,28 @@
 package org.school.analysis.util;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.experimental.UtilityClass;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Кодек JSON баллов формата колонки task_scores_json / max_scores_json: {"1":2,"2":0,...}.
+ * Разбор - однопроходный сканер по строке без промежуточных объектов: баллы читаются сразу
+ * в int[] (индекс = номер задания - 1) или суммируются на месте.
+ * Значения допускаются в кавычках, дробная часть отбрасывается, null считается нулем
+ * (в Map остается null) - так же, как при прежнем разборе через Jackson.
+ * В отличие от Jackson, лишние символы после объекта и JSON не-объект (например, null) - ошибка.
+ */
 @UtilityClass
 public class JsonScoreUtils {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int[] EMPTY_SCORES = new int[0];
+
+    // Режимы сканера
+    private static final int SCAN_MAX_TASK = 0;
+    private static final int SCAN_FILL = 1;
+    private static final int SCAN_SUM = 2;
+    private static final int SCAN_MAP = 3;
 
     /**
      * Преобразовать Map в JSON строку
@@ -19,38 +31,80 @@ public class JsonScoreUtils {
         if (scores == null || scores.isEmpty()) {
             return null;
         }
-        try {
-            return objectMapper.writeValueAsString(scores);
-        } catch (Exception e) {
-            throw new RuntimeException("Ошибка сериализации баллов в JSON: " + e.getMessage(), e);
+        StringBuilder json = new StringBuilder(scores.size() * 8 + 2).append('{');
+        boolean first = true;
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            if (entry.getKey() == null) {
+                throw new RuntimeException("Ошибка сериализации баллов в JSON: номер задания null");
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('"').append(entry.getKey().intValue()).append("\":");
+            if (entry.getValue() != null) {
+                json.append(entry.getValue().intValue());
+            } else {
+                json.append("null");
+            }
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Преобразовать баллы (индекс = номер задания - 1) в JSON строку; null для пустого массива
+     */
+    public static String arrayToJson(int[] scores) {
+        if (scores == null || scores.length == 0) {
+            return null;
+        }
+        StringBuilder json = new StringBuilder(scores.length * 8 + 2).append('{');
+        for (int task = 0; task < scores.length; task++) {
+            if (task > 0) {
+                json.append(',');
+            }
+            json.append('"').append(task + 1).append("\":").append(scores[task]);
         }
+        return json.append('}').toString();
     }
 
     /**
      * Преобразовать JSON строку в Map
      */
     public static Map<Integer, Integer> jsonToMap(String json) {
-        if (json == null || json.trim().isEmpty()) {
-            return new HashMap<>();
+        Map<Integer, Integer> scores = new HashMap<>();
+        if (!isBlank(json)) {
+            scan(json, SCAN_MAP, null, scores);
         }
-        try {
-            return objectMapper.readValue(
-                    json,
-                    new TypeReference<Map<Integer, Integer>>() {}
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Ошибка парсинга JSON баллов: " + e.getMessage(), e);
+        return scores;
+    }
+
+    /**
+     * Преобразовать JSON строку в массив баллов (индекс = номер задания - 1).
+     * Пропущенные задания и null считаются нулем, номера меньше 1 игнорируются
+     * (как в ScoreVector.fromMap)
+     */
+    public static int[] jsonToArray(String json) {
+        if (isBlank(json)) {
+            return EMPTY_SCORES;
         }
+        int taskCount = scan(json, SCAN_MAX_TASK, null, null);
+        if (taskCount == 0) {
+            return EMPTY_SCORES;
+        }
+        int[] scores = new int[taskCount];
+        scan(json, SCAN_FILL, scores, null);
+        return scores;
     }
 
     /**
-     * Рассчитать сумму баллов из JSON
+     * Рассчитать сумму баллов из JSON (без построения Map)
      */
     public static Integer calculateTotalScore(String json) {
-        Map<Integer, Integer> scores = jsonToMap(json);
-        return scores.values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+        if (isBlank(json)) {
+            return 0;
+        }
+        return scan(json, SCAN_SUM, null, null);
     }
 
     /**
@@ -60,8 +114,161 @@ public class JsonScoreUtils {
         if (scores == null || scores.isEmpty()) {
             return 0;
         }
-        return scores.values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+        int sum = 0;
+        for (Integer score : scores.values()) {
+            if (score != null) {
+                sum += score;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Один проход по объекту {"номер":балл,...}.
+     *
+     * @return SCAN_MAX_TASK - наибольший номер задания (не меньше 0), SCAN_SUM - сумма баллов,
+     * остальные режимы - число пар
+     */
+    private static int scan(String json, int mode, int[] target, Map<Integer, Integer> map) {
+        int length = json.length();
+        int pos = skipWhitespace(json, 0);
+        pos = expect(json, pos, '{');
+        pos = skipWhitespace(json, pos);
+
+        int result = 0;
+        if (pos < length && json.charAt(pos) == '}') {
+            return checkEnd(json, pos + 1, result);
+        }
+
+        while (true) {
+            // Ключ - номер задания в кавычках
+            pos = expect(json, pos, '"');
+            long task = 0;
+            boolean negativeTask = pos < length && json.charAt(pos) == '-';
+            if (negativeTask) {
+                pos++;
+            }
+            int digitsStart = pos;
+            while (pos < length && isDigit(json.charAt(pos))) {
+                task = checkRange(json, task * 10 + (json.charAt(pos) - '0'));
+                pos++;
+            }
+            if (pos == digitsStart) {
+                throw error(json, pos, "ожидался номер задания");
+            }
+            if (negativeTask) {
+                task = -task;
+            }
+            pos = expect(json, pos, '"');
+            pos = skipWhitespace(json, pos);
+            pos = expect(json, pos, ':');
+            pos = skipWhitespace(json, pos);
+
+            // Значение - целое (допускаются кавычки и дробная часть) или null
+            boolean isNull = false;
+            long score = 0;
+            if (json.startsWith("null", pos)) {
+                isNull = true;
+                pos += 4;
+            } else {
+                boolean quoted = pos < length && json.charAt(pos) == '"';
+                if (quoted) {
+                    pos++;
+                }
+                boolean negative = pos < length && json.charAt(pos) == '-';
+                if (negative) {
+                    pos++;
+                }
+                digitsStart = pos;
+                while (pos < length && isDigit(json.charAt(pos))) {
+                    score = checkRange(json, score * 10 + (json.charAt(pos) - '0'));
+                    pos++;
+                }
+                if (pos == digitsStart) {
+                    throw error(json, pos, "ожидался балл");
+                }
+                if (pos < length && json.charAt(pos) == '.') {
+                    pos++;
+                    while (pos < length && isDigit(json.charAt(pos))) {
+                        pos++;
+                    }
+                }
+                if (negative) {
+                    score = -score;
+                }
+                if (quoted) {
+                    pos = expect(json, pos, '"');
+                }
+            }
+
+            int taskNumber = (int) task;
+            int value = (int) score;
+            switch (mode) {
+                case SCAN_MAX_TASK -> result = Math.max(result, taskNumber);
+                case SCAN_FILL -> {
+                    if (taskNumber >= 1) {
+                        target[taskNumber - 1] = value;
+                    }
+                    result++;
+                }
+                case SCAN_SUM -> result += value;
+                default -> {
+                    map.put(taskNumber, isNull ? null : value);
+                    result++;
+                }
+            }
+
+            pos = skipWhitespace(json, pos);
+            if (pos >= length) {
+                throw error(json, pos, "неожиданный конец строки");
+            }
+            char next = json.charAt(pos);
+            if (next == '}') {
+                return checkEnd(json, pos + 1, result);
+            }
+            pos = expect(json, pos, ',');
+            pos = skipWhitespace(json, pos);
+        }
+    }
+
+    private static int checkEnd(String json, int pos, int result) {
+        if (skipWhitespace(json, pos) != json.length()) {
+            throw error(json, pos, "лишние символы после объекта");
+        }
+        return result;
+    }
+
+    private static int expect(String json, int pos, char expected) {
+        if (pos >= json.length() || json.charAt(pos) != expected) {
+            throw error(json, pos, "ожидался символ '" + expected + "'");
+        }
+        return pos + 1;
+    }
+
+    private static long checkRange(String json, long value) {
+        if (value > Integer.MAX_VALUE) {
+            throw error(json, -1, "число вне диапазона int");
+        }
+        return value;
+    }
+
+    private static int skipWhitespace(String json, int pos) {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isBlank(String json) {
+        return json == null || json.isBlank();
+    }
+
+    private static RuntimeException error(String json, int pos, String reason) {
+        String where = pos >= 0 ? " (позиция " + pos + ")" : "";
+        return new RuntimeException("Ошибка парсинга JSON баллов: " + reason + where + ": " + json);
     }
-}
\ No newline at end of file
+}
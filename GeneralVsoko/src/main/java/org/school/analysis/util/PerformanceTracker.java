@@ -3,6 +3,7 @@ package org.school.analysis.util;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.school.analysis.pipeline.StageMetrics;
 
 import java.nio.file.Paths;
 import java.time.Duration;
@@ -10,13 +11,17 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static org.school.analysis.config.AppConfig.STATISTIK_REPORT_FOLDER;
+import static org.school.analysis.config.AppConfig.*;
 
 @Slf4j
 public class PerformanceTracker {
 
     private static final Map<String, SchoolProcessingMetrics> schoolMetrics = new ConcurrentHashMap<>();
+    private static final Map<String, PipelineStageTotals> pipelineStages = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final AtomicLong studentRowsInserted = new AtomicLong();
+    private static final AtomicLong studentInsertNanos = new AtomicLong();
     private static LocalDateTime programStartTime;
 
     @Data
@@ -45,12 +50,33 @@ public class PerformanceTracker {
         }
     }
 
+    /**
+     * Накопленные метрики стадии конвейера загрузки (по всем партиям и школам)
+     */
+    @Data
+    public static class PipelineStageTotals {
+        private final String stageName;
+        private long processed;
+        private long failed;
+        private int maxQueueDepth;
+        private Duration busyTime = Duration.ZERO;
+        private Duration elapsedTime = Duration.ZERO;
+
+        public double getThroughputPerSecond() {
+            double seconds = elapsedTime.toNanos() / 1_000_000_000.0;
+            return seconds > 0 ? (processed + failed) / seconds : 0;
+        }
+    }
+
     /**
      * Начать отсчет общего времени программы
      */
     public static void startProgram() {
         programStartTime = LocalDateTime.now();
         schoolMetrics.clear();
+        pipelineStages.clear();
+        studentRowsInserted.set(0);
+        studentInsertNanos.set(0);
         log.info("🚀 Начало выполнения программы в {}",
                 programStartTime.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
     }
@@ -107,6 +133,73 @@ public class PerformanceTracker {
         }
     }
 
+    /**
+     * Учесть метрики стадий завершенного прогона конвейера
+     */
+    public static void recordPipelineStages(List<StageMetrics> stages) {
+        for (StageMetrics stage : stages) {
+            PipelineStageTotals totals = pipelineStages.computeIfAbsent(
+                    stage.getStageName(), PipelineStageTotals::new);
+            synchronized (totals) {
+                totals.setProcessed(totals.getProcessed() + stage.getProcessed());
+                totals.setFailed(totals.getFailed() + stage.getFailed());
+                totals.setMaxQueueDepth(Math.max(totals.getMaxQueueDepth(), stage.getMaxQueueDepth()));
+                totals.setBusyTime(totals.getBusyTime().plus(stage.getBusyTime()));
+                totals.setElapsedTime(totals.getElapsedTime().plus(stage.getElapsedTime()));
+            }
+        }
+    }
+
+    /**
+     * Учесть запись результатов учеников одного файла в БД
+     */
+    public static void recordStudentInserts(int rows, Duration duration) {
+        studentRowsInserted.addAndGet(rows);
+        studentInsertNanos.addAndGet(duration.toNanos());
+    }
+
+    /**
+     * Скорость записи результатов учеников в БД (строк в секунду суммарного времени записи)
+     */
+    public static String getInsertStatistics() {
+        long rows = studentRowsInserted.get();
+        if (rows == 0) {
+            return "";
+        }
+        Duration insertTime = Duration.ofNanos(studentInsertNanos.get());
+        double seconds = insertTime.toNanos() / 1_000_000_000.0;
+        return String.format("\n💾 Запись в БД: %d строк за %s (%.0f строк/с, пакет JDBC: %s)\n",
+                rows, formatDuration(insertTime).trim(), seconds > 0 ? rows / seconds : 0,
+                JDBC_BATCH_INSERT_ENABLED ? String.valueOf(JDBC_BATCH_SIZE) : "выключен");
+    }
+
+    /**
+     * Получить статистику стадий конвейера загрузки
+     */
+    public static String getPipelineStatistics() {
+        if (pipelineStages.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n🏭 КОНВЕЙЕР ЗАГРУЗКИ\n");
+        sb.append(String.format("%-12s | %8s | %12s | %12s | %15s | %12s\n",
+                "Стадия", "Готово", "Отбраковано", "Макс. очередь", "Время работы", "Файл/с"));
+        sb.append("-".repeat(86)).append("\n");
+        synchronized (pipelineStages) {
+            for (PipelineStageTotals totals : pipelineStages.values()) {
+                sb.append(String.format("%-12s | %8d | %12d | %12d | %15s | %12.2f\n",
+                        totals.getStageName(),
+                        totals.getProcessed(),
+                        totals.getFailed(),
+                        totals.getMaxQueueDepth(),
+                        formatDuration(totals.getBusyTime()),
+                        totals.getThroughputPerSecond()));
+            }
+        }
+        return sb.toString();
+    }
+
     /**
      * Получить статистику по всем школам
      */
@@ -271,6 +364,9 @@ public class PerformanceTracker {
             }
         }
 
+        sb.append(getPipelineStatistics());
+        sb.append(getInsertStatistics());
+
         sb.append("\n✅ ПРОГРАММА ВЫПОЛНЕНА УСПЕШНО!\n");
 
         return sb.toString();
@@ -366,6 +462,9 @@ public class PerformanceTracker {
      */
     public static void clear() {
         schoolMetrics.clear();
+        pipelineStages.clear();
+        studentRowsInserted.set(0);
+        studentInsertNanos.set(0);
         programStartTime = null;
     }
 
@@ -0,0 +1,24 @@
+package org.school.analysis.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Генерация UUID на клиенте для строк, которые вставляются в обход генератора Hibernate
+ */
+@UtilityClass
+public class UuidUtils {
+
+    /**
+     * UUID версии 7: старшие биты - время в миллисекундах, поэтому новые строки
+     * попадают в конец индекса первичного ключа
+     */
+    public static UUID timeOrdered() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
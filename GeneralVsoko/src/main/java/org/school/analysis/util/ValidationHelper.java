@@ -1,6 +1,7 @@
 package org.school.analysis.util;
 
 import org.school.analysis.model.ReportFile;
+import org.school.analysis.model.ScoreVector;
 import org.school.analysis.model.StudentResult;
 import org.school.analysis.model.TestMetadata;
 import org.school.analysis.service.TeacherService;
@@ -112,7 +113,7 @@ public class ValidationHelper {
     /**
      * Валидация результата ученика
      */
-    public static ValidationResult validateStudentResult(StudentResult student, Map<Integer, Integer> maxScores) {
+    public static ValidationResult validateStudentResult(StudentResult student, ScoreVector maxScores) {
         ValidationResult result = new ValidationResult();
 
         if (student == null) {
@@ -144,25 +145,21 @@ public class ValidationHelper {
         }
 
         // Валидация баллов
-        if (student.wasPresent() && student.getTaskScores() != null && maxScores != null) {
-            for (var entry : student.getTaskScores().entrySet()) {
-                Integer taskNum = entry.getKey();
-                Integer score = entry.getValue();
-                Integer maxScore = maxScores.get(taskNum);
-
-                if (maxScore == null) {
+        if (student.wasPresent() && student.getScoreVector() != null && maxScores != null) {
+            student.getScoreVector().forEach((taskNum, score) -> {
+                if (taskNum > maxScores.getTaskCount()) {
                     result.addError("Отсутствует максимальный балл для задания " + taskNum);
-                } else if (!isValidScore(score, maxScore)) {
+                } else if (!isValidScore(score, maxScores.get(taskNum))) {
                     result.addError(String.format(
                             "Некорректный балл для задания %d: %d (максимум %d)",
-                            taskNum, score, maxScore
+                            taskNum, score, maxScores.get(taskNum)
                     ));
                 }
-            }
+            });
 
             // Валидация общего балла (если он установлен)
             if (student.getTotalScore() != null) {
-                int calculatedTotal = JsonScoreUtils.calculateTotalScore(student.getTaskScores());
+                int calculatedTotal = student.getScoreVector().getTotal();
                 if (student.getTotalScore() != calculatedTotal) {
                     result.addWarning(String.format(
                             "Несоответствие общего балла: указано %d, рассчитано %d",
@@ -201,17 +198,16 @@ public class ValidationHelper {
             result.addError("Не указана дата теста");
         }
 
-        // Валидация максимальных баллов
-        if (metadata.getMaxScores() == null || metadata.getMaxScores().isEmpty()) {
+        // Валидация максимальных баллов (пропущенное задание в векторе имеет максимум 0)
+        ScoreVector maxScores = metadata.getMaxScores();
+        if (maxScores == null || maxScores.isEmpty()) {
             result.addError("Отсутствуют максимальные баллы");
         } else {
-            for (var entry : metadata.getMaxScores().entrySet()) {
-                Integer taskNum = entry.getKey();
-                Integer maxScore = entry.getValue();
-
-                if (taskNum <= 0 || taskNum > 100) {
-                    result.addError("Некорректный номер задания: " + taskNum);
-                }
+            if (maxScores.getTaskCount() > 100) {
+                result.addError("Некорректный номер задания: " + maxScores.getTaskCount());
+            }
+            for (int taskNum = 1; taskNum <= maxScores.getTaskCount(); taskNum++) {
+                int maxScore = maxScores.get(taskNum);
                 if (maxScore <= 0 || maxScore > 100) {
                     result.addError(String.format(
                             "Некорректный максимальный балл для задания %d: %d",
@@ -219,18 +215,6 @@ public class ValidationHelper {
                     ));
                 }
             }
-
-            // Проверяем последовательность номеров заданий
-            int expectedTaskNum = 1;
-            for (Integer taskNum : metadata.getMaxScores().keySet().stream().sorted().toList()) {
-                if (taskNum != expectedTaskNum) {
-                    result.addWarning(String.format(
-                            "Пропущен номер задания: ожидалось %d, найдено %d",
-                            expectedTaskNum, taskNum
-                    ));
-                }
-                expectedTaskNum++;
-            }
         }
 
         return result;
@@ -273,29 +257,27 @@ public class ValidationHelper {
         }
 
         // Валидация максимальных баллов
-        Map<Integer, Integer> maxScores = reportFile.getMaxScores();
+        ScoreVector maxScores = reportFile.getMaxScores();
         if (maxScores == null || maxScores.isEmpty()) {
             log.error("Файл {}: отсутствуют максимальные баллы", fileName);
             isValid = false;
         } else {
             // Проверяем согласованность taskCount и количества заданий
-            int actualTaskCount = maxScores.size();
+            int actualTaskCount = maxScores.getTaskCount();
             if (reportFile.getTaskCount() != actualTaskCount) {
                 log.warn("Файл {}: несоответствие количества заданий: указано {}, найдено {}",
                         fileName, reportFile.getTaskCount(), actualTaskCount);
                 // Автоматически исправляем
                 reportFile.setTaskCount(actualTaskCount);
             }
+            if (actualTaskCount > 100) {
+                log.error("Файл {}: некорректный номер задания: {}", fileName, actualTaskCount);
+                isValid = false;
+            }
 
             // Валидация каждого задания
-            for (var entry : maxScores.entrySet()) {
-                Integer taskNum = entry.getKey();
-                Integer maxScore = entry.getValue();
-
-                if (taskNum <= 0 || taskNum > 100) {
-                    log.error("Файл {}: некорректный номер задания: {}", fileName, taskNum);
-                    isValid = false;
-                }
+            for (int taskNum = 1; taskNum <= actualTaskCount; taskNum++) {
+                int maxScore = maxScores.get(taskNum);
                 if (maxScore <= 0 || maxScore > 100) {
                     log.error("Файл {}: некорректный максимальный балл для задания {}: {}",
                             fileName, taskNum, maxScore);
@@ -363,14 +345,14 @@ public class ValidationHelper {
         }
 
         // Валидация максимальных баллов
-        Map<Integer, Integer> maxScores = reportFile.getMaxScores();
+        ScoreVector maxScores = reportFile.getMaxScores();
         if (maxScores == null || maxScores.isEmpty()) {
             String error = "Отсутствуют максимальные баллы";
             result.addError(error);
             log.error("Файл {}: {}", fileName, error);
         } else {
             // Проверяем согласованность taskCount и количества заданий
-            int actualTaskCount = maxScores.size();
+            int actualTaskCount = maxScores.getTaskCount();
             if (reportFile.getTaskCount() != actualTaskCount) {
                 String warning = String.format(
                         "Несоответствие количества заданий: указано %d, найдено %d",
@@ -381,17 +363,15 @@ public class ValidationHelper {
                 // Автоматически исправляем
                 reportFile.setTaskCount(actualTaskCount);
             }
+            if (actualTaskCount > 100) {
+                String error = "Некорректный номер задания: " + actualTaskCount;
+                result.addError(error);
+                log.error("Файл {}: {}", fileName, error);
+            }
 
             // Валидация каждого задания
-            for (var entry : maxScores.entrySet()) {
-                Integer taskNum = entry.getKey();
-                Integer maxScore = entry.getValue();
-
-                if (taskNum <= 0 || taskNum > 100) {
-                    String error = "Некорректный номер задания: " + taskNum;
-                    result.addError(error);
-                    log.error("Файл {}: {}", fileName, error);
-                }
+            for (int taskNum = 1; taskNum <= actualTaskCount; taskNum++) {
+                int maxScore = maxScores.get(taskNum);
                 if (maxScore <= 0 || maxScore > 100) {
                     String error = String.format(
                             "Некорректный максимальный балл для задания %d: %d",
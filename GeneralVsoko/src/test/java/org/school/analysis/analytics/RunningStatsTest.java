@@ -0,0 +1,144 @@
+package org.school.analysis.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RunningStatsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void addMatchesTwoPassVariance() {
+        double[] values = {72.5, 10.0, 100.0, 55.25, 0.0, 88.0, 41.0};
+
+        RunningStats stats = statsOf(values, 0, values.length);
+
+        assertMatchesTwoPass(stats, values);
+        assertThat(stats.getMin()).isEqualTo(0.0);
+        assertThat(stats.getMax()).isEqualTo(100.0);
+    }
+
+    /**
+     * Формула Чана для любого разбиения выборки совпадает с двухпроходным расчетом по всей выборке
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 17, 50, 99})
+    void mergeMatchesTwoPassVariance(int split) {
+        double[] values = new double[100];
+        Random random = new Random(split);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(101) + random.nextDouble();
+        }
+
+        RunningStats merged = statsOf(values, 0, split);
+        merged.merge(statsOf(values, split, values.length));
+
+        assertMatchesTwoPass(merged, values);
+        assertThat(merged.getHistogram()).isEqualTo(statsOf(values, 0, values.length).getHistogram());
+    }
+
+    @Test
+    void mergeOfShiftedSamplesKeepsPrecision() {
+        // Большое смещение: наивная формула через сумму квадратов теряет точность
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1e9 + (i % 10);
+        }
+
+        RunningStats merged = new RunningStats();
+        RunningStats other = new RunningStats();
+        for (int i = 0; i < values.length; i++) {
+            (i < 300 ? merged : other).add(values[i], i % 10);
+        }
+        merged.merge(other);
+
+        assertMatchesTwoPass(merged, values);
+        assertThat(merged.getHistogram()).containsOnly(100);
+    }
+
+    @Test
+    void mergeWithEmptyStats() {
+        double[] values = {3, 1, 4, 1, 5};
+
+        RunningStats stats = statsOf(values, 0, values.length);
+        stats.merge(new RunningStats());
+        assertMatchesTwoPass(stats, values);
+        assertThat(stats.getHistogram()).containsExactly(5);
+
+        RunningStats empty = new RunningStats();
+        empty.merge(statsOf(values, 0, values.length));
+        assertMatchesTwoPass(empty, values);
+        assertThat(empty.getMin()).isEqualTo(1.0);
+        assertThat(empty.getMax()).isEqualTo(5.0);
+        assertThat(empty.getHistogram()).containsExactly(5);
+
+        RunningStats bothEmpty = new RunningStats();
+        bothEmpty.merge(new RunningStats());
+        assertThat(bothEmpty.getCount()).isZero();
+        assertThat(bothEmpty.getMean()).isZero();
+        assertThat(bothEmpty.getVariance()).isZero();
+        assertThat(bothEmpty.getMin()).isNull();
+        assertThat(bothEmpty.getMax()).isNull();
+        assertThat(bothEmpty.getHistogram()).isEmpty();
+    }
+
+    @Test
+    void singleValueHasZeroVariance() {
+        RunningStats stats = new RunningStats();
+        stats.add(42.0, 4);
+
+        assertThat(stats.getCount()).isEqualTo(1);
+        assertThat(stats.getMean()).isEqualTo(42.0);
+        assertThat(stats.getVariance()).isZero();
+        assertThat(stats.getHistogram()).containsExactly(0, 0, 0, 0, 1);
+    }
+
+    @Test
+    void restoredStatsMergeLikeOriginal() {
+        double[] values = {12, 15, 9, 20, 18, 11};
+        RunningStats original = statsOf(values, 0, 3);
+
+        RunningStats restored = RunningStats.of(original.getCount(), original.getMean(), original.getM2(),
+                original.getMin(), original.getMax(), original.getHistogram());
+        restored.merge(statsOf(values, 3, values.length));
+
+        assertMatchesTwoPass(restored, values);
+        assertThat(RunningStats.of(0, 0, 0, null, null, null).getMin()).isNull();
+    }
+
+    /**
+     * Статистика значений values[from, to); корзина гистограммы - целая часть значения / 10
+     */
+    private static RunningStats statsOf(double[] values, int from, int to) {
+        RunningStats stats = new RunningStats();
+        for (int i = from; i < to; i++) {
+            stats.add(values[i], (int) (values[i] / 10));
+        }
+        return stats;
+    }
+
+    private static void assertMatchesTwoPass(RunningStats stats, double[] values) {
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= values.length;
+
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        double variance = values.length > 1 ? squares / (values.length - 1) : 0.0;
+
+        assertThat(stats.getCount()).isEqualTo(values.length);
+        assertThat(stats.getMean()).isCloseTo(mean, within(Math.abs(mean) * EPSILON + EPSILON));
+        assertThat(stats.getM2()).isCloseTo(squares, within(squares * 1e-7 + EPSILON));
+        assertThat(stats.getVariance()).isCloseTo(variance, within(variance * 1e-7 + EPSILON));
+    }
+}
@@ -0,0 +1,169 @@
+package org.school.analysis.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoreVectorTest {
+
+    @Test
+    void zeroWidthForAllZeroScores() {
+        ScoreVector vector = ScoreVector.of(new int[5]);
+
+        assertThat(vector.getBitsPerScore()).isZero();
+        assertThat(vector.getTaskCount()).isEqualTo(5);
+        assertThat(vector.getTotal()).isZero();
+        assertThat(vector.toArray()).containsExactly(0, 0, 0, 0, 0);
+        assertThat(vector.get(1)).isZero();
+        assertThat(vector.get(5)).isZero();
+        assertThat(vector.toJson()).isEqualTo("{\"1\":0,\"2\":0,\"3\":0,\"4\":0,\"5\":0}");
+    }
+
+    @Test
+    void emptyVector() {
+        assertThat(ScoreVector.of(new int[0])).isSameAs(ScoreVector.EMPTY);
+        assertThat(ScoreVector.of(null)).isSameAs(ScoreVector.EMPTY);
+        assertThat(ScoreVector.EMPTY.getBitsPerScore()).isZero();
+        assertThat(ScoreVector.EMPTY.isEmpty()).isTrue();
+        assertThat(ScoreVector.EMPTY.toJson()).isNull();
+        assertThat(ScoreVector.EMPTY.get(1)).isZero();
+    }
+
+    @Test
+    void widthFollowsLargestScore() {
+        assertThat(ScoreVector.of(new int[]{1, 0, 1}).getBitsPerScore()).isEqualTo(1);
+        assertThat(ScoreVector.of(new int[]{7, 2, 0}).getBitsPerScore()).isEqualTo(3);
+        assertThat(ScoreVector.of(new int[]{4, 8}).getBitsPerScore()).isEqualTo(4);
+        assertThat(ScoreVector.of(new int[]{Integer.MAX_VALUE, 1}).getBitsPerScore()).isEqualTo(31);
+    }
+
+    @Test
+    void negativeScoresUseFullWidth() {
+        int[] scores = {-1, 5, Integer.MIN_VALUE, 0, Integer.MAX_VALUE};
+        ScoreVector vector = ScoreVector.of(scores);
+
+        assertThat(vector.getBitsPerScore()).isEqualTo(32);
+        assertThat(vector.toArray()).containsExactly(scores);
+        assertThat(vector.get(1)).isEqualTo(-1);
+        assertThat(vector.get(3)).isEqualTo(Integer.MIN_VALUE);
+        assertThat(vector.getTotal()).isEqualTo(-1 + 5 + Integer.MIN_VALUE + Integer.MAX_VALUE);
+    }
+
+    /**
+     * Число значений вокруг границы слова: 3 бита - 21 в long, 31 бит - 2 в long
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 20, 21, 22, 42, 43, 100})
+    void valuesAroundWordBoundaries(int taskCount) {
+        int[] threeBits = new int[taskCount];
+        int[] thirtyOneBits = new int[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            threeBits[i] = (i * 5 + 7) % 8;
+            thirtyOneBits[i] = Integer.MAX_VALUE - i;
+        }
+        threeBits[taskCount - 1] = 7;
+
+        assertUnpacksTo(ScoreVector.of(threeBits), threeBits, 3);
+        assertUnpacksTo(ScoreVector.of(thirtyOneBits), thirtyOneBits, 31);
+    }
+
+    @Test
+    void getOutsideVectorIsZero() {
+        ScoreVector vector = ScoreVector.of(new int[]{3, 2, 1});
+
+        assertThat(vector.get(0)).isZero();
+        assertThat(vector.get(-1)).isZero();
+        assertThat(vector.get(4)).isZero();
+    }
+
+    @Test
+    void widthOfMaxScoresKeepsValues() {
+        ScoreVector maxScores = ScoreVector.of(new int[]{20, 10, 5});
+        ScoreVector scores = ScoreVector.of(new int[]{1, 0, 1});
+
+        ScoreVector widened = scores.withWidthOf(maxScores);
+
+        assertThat(widened.getBitsPerScore()).isEqualTo(5);
+        assertThat(widened.toArray()).containsExactly(1, 0, 1);
+        assertThat(widened.getTotal()).isEqualTo(2);
+        assertThat(widened).isEqualTo(scores).hasSameHashCodeAs(scores);
+        assertThat(scores).isEqualTo(widened);
+    }
+
+    @Test
+    void widthOfMaxScoresNeverNarrows() {
+        ScoreVector maxScores = ScoreVector.of(new int[]{3, 3});
+        ScoreVector aboveMax = ScoreVector.of(new int[]{9, 1});
+        ScoreVector negative = ScoreVector.of(new int[]{-1, 1});
+        ScoreVector zeros = ScoreVector.of(new int[2]);
+
+        assertThat(aboveMax.withWidthOf(maxScores)).isSameAs(aboveMax);
+        assertThat(negative.withWidthOf(maxScores)).isSameAs(negative);
+        assertThat(ScoreVector.EMPTY.withWidthOf(maxScores)).isSameAs(ScoreVector.EMPTY);
+        assertThat(zeros.withWidthOf(null)).isSameAs(zeros);
+        assertThat(zeros.withWidthOf(maxScores).getBitsPerScore()).isEqualTo(2);
+        assertThat(zeros.withWidthOf(maxScores).toArray()).containsExactly(0, 0);
+    }
+
+    @Test
+    void widthOfMaxScoresAcrossWordBoundary() {
+        int[] maxValues = new int[22];
+        int[] values = new int[22];
+        for (int i = 0; i < values.length; i++) {
+            maxValues[i] = 7;
+            values[i] = i % 2;
+        }
+
+        assertUnpacksTo(ScoreVector.of(values).withWidthOf(ScoreVector.of(maxValues)), values, 3);
+    }
+
+    @Test
+    void equalityDependsOnValuesOnly() {
+        assertThat(ScoreVector.of(new int[]{1, 2})).isEqualTo(ScoreVector.of(new int[]{1, 2}));
+        assertThat(ScoreVector.of(new int[]{1, 2})).isNotEqualTo(ScoreVector.of(new int[]{2, 1}));
+        assertThat(ScoreVector.of(new int[]{1, 2})).isNotEqualTo(ScoreVector.of(new int[]{1, 2, 0}));
+        assertThat(ScoreVector.of(new int[]{0, 0})).isNotEqualTo(ScoreVector.EMPTY);
+    }
+
+    @Test
+    void fromMapFillsMissingTasksWithZero() {
+        ScoreVector vector = ScoreVector.fromMap(Map.of(1, 2, 3, 1, 0, 5));
+
+        assertThat(vector.toArray()).containsExactly(2, 0, 1);
+        assertThat(vector.asMap()).containsExactly(Map.entry(1, 2), Map.entry(2, 0), Map.entry(3, 1));
+    }
+
+    @Test
+    void jsonRoundTrip() {
+        ScoreVector vector = ScoreVector.of(new int[]{2, 0, 1, 12});
+
+        assertThat(ScoreVector.fromJson(vector.toJson())).isEqualTo(vector);
+        assertThat(ScoreVector.fromJson(null)).isSameAs(ScoreVector.EMPTY);
+    }
+
+    private static void assertUnpacksTo(ScoreVector vector, int[] expected, int bitsPerScore) {
+        assertThat(vector.getBitsPerScore()).isEqualTo(bitsPerScore);
+        assertThat(vector.getTaskCount()).isEqualTo(expected.length);
+        assertThat(vector.toArray()).containsExactly(expected);
+
+        long total = 0;
+        for (int task = 1; task <= expected.length; task++) {
+            assertThat(vector.get(task)).as("Задание %d", task).isEqualTo(expected[task - 1]);
+            total += expected[task - 1];
+        }
+        assertThat(vector.getTotal()).isEqualTo((int) total);
+
+        List<Integer> visited = new ArrayList<>();
+        vector.forEach((task, score) -> {
+            assertThat(score).isEqualTo(expected[task - 1]);
+            visited.add(task);
+        });
+        assertThat(visited).hasSize(expected.length);
+    }
+}
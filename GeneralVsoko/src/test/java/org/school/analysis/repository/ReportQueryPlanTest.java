@@ -0,0 +1,227 @@
+package org.school.analysis.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.school.analysis.config.StudentResultsPartitioning;
+import org.school.analysis.model.ProcessingStatus;
+import org.school.analysis.model.ScoreVector;
+import org.school.analysis.model.StatsDimension;
+import org.school.analysis.model.entity.ReportFileEntity;
+import org.school.analysis.model.entity.StudentResultEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.school.analysis.config.AppConfig.ALL_ACADEMIC_YEAR;
+import static org.school.analysis.config.AppConfig.SCHOOLS;
+
+/**
+ * Планы запросов отчетов: вызывается сам метод репозитория, SQL, сгенерированный Hibernate,
+ * перехватывается и выполняется как EXPLAIN с enable_seqscan = off на заполненной БД.
+ * Если в плане все равно остается Seq Scan, подходящего индекса нет.
+ * student_results секционируется так же, как при старте приложения (StudentResultsPartitioning).
+ * Нужен Docker, без него тест пропускается.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "org.school.analysis.repository.ReportQueryPlanTest$LastSqlInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StudentResultsPartitioning.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ReportQueryPlanTest {
+
+    private static final int FILES = 40;
+    private static final int STUDENTS_PER_FILE = 25;
+
+    private static final String SCHOOL = SCHOOLS.get(0);
+    private static final String YEAR = ALL_ACADEMIC_YEAR.get(0);
+
+    // Таблица, которую читает узел сканирования плана (Bitmap Index Scan называет индекс и не учитывается)
+    private static final Pattern SCANNED_RELATION =
+            Pattern.compile("(?:Seq Scan|Bitmap Heap Scan|Scan(?: Backward)? using \\S+) on (\\w+)");
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    /**
+     * Запоминает последний SELECT, отправленный Hibernate (подключается свойством statement_inspector)
+     */
+    public static class LastSqlInspector implements StatementInspector {
+        private static volatile String lastSelect;
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+                lastSelect = sql;
+            }
+            return sql;
+        }
+    }
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StudentResultsPartitioning partitioning;
+
+    @Autowired
+    private ReportFileRepository reportFileRepository;
+
+    @Autowired
+    private StudentResultRepository studentResultRepository;
+
+    @Autowired
+    private TaskStatsRepository taskStatsRepository;
+
+    @Autowired
+    private StatsAggregateRepository statsAggregateRepository;
+
+    private UUID reportFileId;
+
+    @BeforeEach
+    void seed() {
+        // Обычно уже выполнено при старте контекста (ApplicationReadyEvent); повторный вызов ничего не меняет
+        partitioning.ensurePartitions();
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int file = 0; file < FILES; file++) {
+            ReportFileEntity reportFile = ReportFileEntity.builder()
+                    .filePath("/tmp/report" + file + ".xlsx")
+                    .fileName("report" + file + ".xlsx")
+                    .fileHash(UUID.randomUUID().toString().replace("-", ""))
+                    .subject(file % 2 == 0 ? "Математика" : "Русский язык")
+                    .className((5 + file % 7) + "А")
+                    .status(ProcessingStatus.SAVED)
+                    .testDate(LocalDate.of(2025, 9, 1).plusDays(file))
+                    .teacher("Учитель " + file % 4)
+                    .schoolName(SCHOOLS.get(file % SCHOOLS.size()))
+                    .academicYear(ALL_ACADEMIC_YEAR.get(file % ALL_ACADEMIC_YEAR.size()))
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            entityManager.persist(reportFile);
+            reportFileId = reportFile.getId();
+
+            for (int student = 0; student < STUDENTS_PER_FILE; student++) {
+                ScoreVector scores = ScoreVector.of(new int[]{student % 3, 1, student % 2, 2});
+                entityManager.persist(StudentResultEntity.builder()
+                        .reportFile(reportFile)
+                        .subject(reportFile.getSubject())
+                        .className(reportFile.getClassName())
+                        .fio("Ученик " + student)
+                        .presence("Был")
+                        .testDate(reportFile.getTestDate())
+                        .totalScore(scores.getTotal())
+                        .taskScores(scores)
+                        .taskScoresJson(scores.toJson())
+                        .schoolName(reportFile.getSchoolName())
+                        .academicYear(reportFile.getAcademicYear())
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        jdbcTemplate.execute("ANALYZE");
+        // SET LOCAL действует до конца транзакции теста
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void testSummariesUseIndexes() {
+        assertNoSeqScan("Сводка по тестам школы",
+                () -> reportFileRepository.findTestSummaries(SCHOOL, YEAR), SCHOOL, YEAR);
+    }
+
+    @Test
+    void studentsOfSchoolYearUseIndexes() {
+        assertNoSeqScan("Ученики школы за год",
+                () -> studentResultRepository.findDetailRowsBySchoolAndYear(SCHOOL, YEAR), YEAR, SCHOOL, YEAR);
+    }
+
+    @Test
+    void studentsOfSchoolYearReadOnePartition() {
+        List<String> plan = explain(
+                () -> studentResultRepository.findDetailRowsBySchoolAndYear(SCHOOL, YEAR), YEAR, SCHOOL, YEAR);
+
+        Set<String> studentTables = plan.stream()
+                .map(SCANNED_RELATION::matcher)
+                .filter(Matcher::find)
+                .map(matcher -> matcher.group(1))
+                .filter(table -> table.startsWith("student_results"))
+                .collect(Collectors.toSet());
+        assertThat(studentTables)
+                .as("Секции student_results в плане:%n%s", String.join("\n", plan))
+                .containsExactly("student_results_" + YEAR.replaceAll("[^0-9A-Za-z]+", "_"));
+    }
+
+    @Test
+    void studentsOfFileUseIndexes() {
+        assertNoSeqScan("Ученики файла",
+                () -> studentResultRepository.findByReportFileId(reportFileId), reportFileId);
+    }
+
+    @Test
+    void taskStatsOfSchoolYearUseIndexes() {
+        assertNoSeqScan("Статистика заданий школы за год",
+                () -> taskStatsRepository.findBySchoolAndYear(SCHOOL, YEAR), SCHOOL, YEAR);
+    }
+
+    @Test
+    void aggregatesOfDimensionUseIndexes() {
+        assertNoSeqScan("Накопительная статистика разреза",
+                () -> statsAggregateRepository.findBySchoolNameAndAcademicYearAndDimensionOrderByDimensionKeyAscTaskNumberAsc(
+                        SCHOOL, YEAR, StatsDimension.SUBJECT),
+                SCHOOL, YEAR, StatsDimension.SUBJECT.name());
+    }
+
+    /**
+     * Выполнить метод репозитория и проверить план его SQL
+     *
+     * @param parameters значения параметров в порядке появления в SQL
+     */
+    private void assertNoSeqScan(String name, Runnable repositoryCall, Object... parameters) {
+        List<String> plan = explain(repositoryCall, parameters);
+
+        assertThat(plan)
+                .as("План запроса '%s':%n%s", name, String.join("\n", plan))
+                .noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    private List<String> explain(Runnable repositoryCall, Object... parameters) {
+        LastSqlInspector.lastSelect = null;
+        repositoryCall.run();
+        String sql = LastSqlInspector.lastSelect;
+        assertThat(sql).as("SQL метода репозитория").isNotNull();
+        assertThat(sql.chars().filter(c -> c == '?').count())
+                .as("Параметров в SQL: %s", sql)
+                .isEqualTo(parameters.length);
+
+        return jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters);
+    }
+}
@@ -0,0 +1,168 @@
+package org.school.analysis.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.mapper.ReportMapper;
+import org.school.analysis.model.ReportFile;
+import org.school.analysis.model.ReportFileSavedEvent;
+import org.school.analysis.model.ScoreVector;
+import org.school.analysis.model.StudentResult;
+import org.school.analysis.model.entity.ReportFileEntity;
+import org.school.analysis.model.entity.StudentResultEntity;
+import org.school.analysis.repository.ReportFileRepository;
+import org.school.analysis.repository.StudentResultRepository;
+import org.school.analysis.service.FileFingerprintService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.school.analysis.config.AppConfig.JDBC_BATCH_SIZE;
+
+/**
+ * SavedServiceImpl.saveAll: какие строки report_files и student_results оказываются в БД.
+ * Учеников больше JDBC_BATCH_SIZE, чтобы запись шла несколькими пакетами.
+ * Нужен Docker, без него тест пропускается.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SavedServiceImpl.class, ReportStatsServiceImpl.class, ReportMapper.class})
+@RecordApplicationEvents
+@Testcontainers(disabledWithoutDocker = true)
+class SavedServiceImplTest {
+
+    private static final int STUDENTS = JDBC_BATCH_SIZE * 2 + 17;
+    private static final ScoreVector MAX_SCORES = ScoreVector.of(new int[]{2, 2, 3, 4, 1, 2, 2, 4});
+    private static final LocalDate TEST_DATE = LocalDate.of(2025, 10, 1);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @MockitoBean
+    private FileFingerprintService fileFingerprintService;
+
+    @Autowired
+    private SavedServiceImpl savedService;
+
+    @Autowired
+    private ReportFileRepository reportFileRepository;
+
+    @Autowired
+    private StudentResultRepository studentResultRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void saveAllWritesEveryStudent() {
+        ReportFile reportFile = reportFile("a1");
+        List<StudentResult> students = students();
+
+        int saved = savedService.saveAll(reportFile, students);
+
+        assertThat(saved).isEqualTo(STUDENTS);
+        UUID reportFileId = savedFileId();
+
+        ReportFileEntity fileEntity = reportFileRepository.findById(reportFileId).orElseThrow();
+        assertThat(fileEntity.getFileHash()).isEqualTo("a1");
+        assertThat(fileEntity.getFileName()).isEqualTo("7А_математика.xlsx");
+        assertThat(fileEntity.getStudentCount()).isEqualTo(STUDENTS);
+        assertThat(fileEntity.getMaxScores()).isEqualTo(MAX_SCORES);
+
+        List<StudentResultEntity> rows = new ArrayList<>(studentResultRepository.findByReportFileId(reportFileId));
+        rows.sort(Comparator.comparingInt(row -> Integer.parseInt(row.getFio().substring("Ученик ".length()))));
+        assertThat(rows).hasSize(STUDENTS);
+        for (int i = 0; i < STUDENTS; i++) {
+            StudentResultEntity row = rows.get(i);
+            ScoreVector scores = students.get(i).getScoreVector();
+
+            assertThat(row.getFio()).isEqualTo("Ученик " + i);
+            assertThat(row.getSubject()).isEqualTo("Математика");
+            assertThat(row.getClassName()).isEqualTo("7А");
+            assertThat(row.getTestType()).isEqualTo("ВПР");
+            assertThat(row.getTestDate()).isEqualTo(TEST_DATE);
+            assertThat(row.getSchoolName()).isEqualTo(reportFile.getSchoolName());
+            assertThat(row.getAcademicYear()).isEqualTo(reportFile.getAcademicYear());
+            assertThat(row.getTaskScores()).as("Баллы ученика %d", i).isEqualTo(scores);
+            assertThat(row.getTaskScoresJson()).isEqualTo(scores.toJson());
+            assertThat(row.getTotalScore()).isEqualTo(scores.getTotal());
+            // Процент считается по вектору баллов и максимумам файла, а не берется из модели
+            assertThat(row.getPercentageScore()).isEqualTo(scores.percentageOf(MAX_SCORES.getTotal()));
+        }
+
+        // Хеш передан в модели - содержимое файла не читается
+        verifyNoInteractions(fileFingerprintService);
+    }
+
+    @Test
+    void saveAllSkipsDuplicateFile() {
+        savedService.saveAll(reportFile("b2"), students());
+        UUID reportFileId = savedFileId();
+
+        int saved = savedService.saveAll(reportFile("b2"), students().subList(0, 3));
+
+        assertThat(saved).isZero();
+        assertThat(reportFileRepository.count()).isEqualTo(1);
+        assertThat(studentResultRepository.countByReportFileId(reportFileId)).isEqualTo(STUDENTS);
+        assertThat(events.stream(ReportFileSavedEvent.class)).hasSize(1);
+    }
+
+    /**
+     * ID файла из единственного события сохранения
+     */
+    private UUID savedFileId() {
+        List<ReportFileSavedEvent> saved = events.stream(ReportFileSavedEvent.class).toList();
+        assertThat(saved).hasSize(1);
+        return saved.get(0).reportFileId();
+    }
+
+    private static ReportFile reportFile(String fileHash) {
+        ReportFile reportFile = new ReportFile();
+        reportFile.setFile(new File("/tmp/7А_математика.xlsx"));
+        reportFile.setFileHash(fileHash);
+        reportFile.setSubject("Математика");
+        reportFile.setClassName("7А");
+        reportFile.setTestType("ВПР");
+        reportFile.setTestDate(TEST_DATE);
+        reportFile.setTeacher("Иванова И.И.");
+        reportFile.setTaskCount(MAX_SCORES.getTaskCount());
+        reportFile.setMaxScores(MAX_SCORES);
+        return reportFile;
+    }
+
+    private static List<StudentResult> students() {
+        List<StudentResult> students = new ArrayList<>(STUDENTS);
+        for (int i = 0; i < STUDENTS; i++) {
+            StudentResult student = new StudentResult();
+            student.setSubject("Математика");
+            student.setClassName("7А");
+            student.setFio("Ученик " + i);
+            student.setPresence("Был");
+            student.setTestType("ВПР");
+            student.setTestDate(TEST_DATE);
+            student.setScoreVector(ScoreVector.of(new int[]{i % 3, 1, i % 4, i % 5, 0, 1, 2, i % 2}));
+            student.setPercentageScore(0.0);
+            students.add(student);
+        }
+        return students;
+    }
+}
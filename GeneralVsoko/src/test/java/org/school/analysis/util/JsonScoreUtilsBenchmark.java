@@ -0,0 +1,87 @@
+package org.school.analysis.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: кодек JsonScoreUtils против прежней реализации через Jackson databind (ObjectMapper + TypeReference).
+ * Запуск вручную: main этого класса из test classpath (в mvn test не входит).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonScoreUtilsBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<Integer, Integer>> SCORES_TYPE = new TypeReference<>() {};
+
+    // Число заданий в тесте
+    @Param({"10", "30"})
+    private int taskCount;
+
+    private String json;
+    private Map<Integer, Integer> scores;
+
+    @Setup
+    public void setUp() {
+        scores = new LinkedHashMap<>();
+        for (int task = 1; task <= taskCount; task++) {
+            scores.put(task, task % 4);
+        }
+        json = JsonScoreUtils.mapToJson(scores);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> jacksonJsonToMap() throws Exception {
+        return OBJECT_MAPPER.readValue(json, SCORES_TYPE);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> codecJsonToMap() {
+        return JsonScoreUtils.jsonToMap(json);
+    }
+
+    @Benchmark
+    public int[] codecJsonToArray() {
+        return JsonScoreUtils.jsonToArray(json);
+    }
+
+    @Benchmark
+    public int jacksonTotalScore() throws Exception {
+        return OBJECT_MAPPER.readValue(json, SCORES_TYPE).values().stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    @Benchmark
+    public int codecTotalScore() {
+        return JsonScoreUtils.calculateTotalScore(json);
+    }
+
+    @Benchmark
+    public String jacksonMapToJson() throws Exception {
+        return OBJECT_MAPPER.writeValueAsString(scores);
+    }
+
+    @Benchmark
+    public String codecMapToJson() {
+        return JsonScoreUtils.mapToJson(scores);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonScoreUtilsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
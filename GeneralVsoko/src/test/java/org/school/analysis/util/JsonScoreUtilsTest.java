@@ -0,0 +1,156 @@
+package org.school.analysis.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonScoreUtilsTest {
+
+    @Test
+    void arrayRoundTrip() {
+        int[][] cases = {
+                {0},
+                {1, 2, 3},
+                {0, 0, 0, 0},
+                {-1, 5, -32768, 32767},
+                {Integer.MAX_VALUE, Integer.MIN_VALUE + 1},
+                new int[31]
+        };
+        for (int[] scores : cases) {
+            String json = JsonScoreUtils.arrayToJson(scores);
+            assertThat(JsonScoreUtils.jsonToArray(json)).containsExactly(scores);
+        }
+        assertThat(JsonScoreUtils.arrayToJson(new int[]{2, 0, 1})).isEqualTo("{\"1\":2,\"2\":0,\"3\":1}");
+    }
+
+    @Test
+    void mapRoundTripKeepsNullValues() {
+        Map<Integer, Integer> scores = new LinkedHashMap<>();
+        scores.put(1, 2);
+        scores.put(2, null);
+        scores.put(3, -1);
+
+        String json = JsonScoreUtils.mapToJson(scores);
+
+        assertThat(json).isEqualTo("{\"1\":2,\"2\":null,\"3\":-1}");
+        assertThat(JsonScoreUtils.jsonToMap(json)).isEqualTo(new HashMap<>(scores));
+    }
+
+    @Test
+    void emptyInput() {
+        assertThat(JsonScoreUtils.arrayToJson(new int[0])).isNull();
+        assertThat(JsonScoreUtils.arrayToJson(null)).isNull();
+        assertThat(JsonScoreUtils.mapToJson(Map.of())).isNull();
+        assertThat(JsonScoreUtils.jsonToArray(null)).isEmpty();
+        assertThat(JsonScoreUtils.jsonToArray("  ")).isEmpty();
+        assertThat(JsonScoreUtils.jsonToArray("{}")).isEmpty();
+        assertThat(JsonScoreUtils.jsonToMap(null)).isEmpty();
+        assertThat(JsonScoreUtils.calculateTotalScore((String) null)).isZero();
+        assertThat(JsonScoreUtils.calculateTotalScore("{ }")).isZero();
+    }
+
+    @Test
+    void whitespaceBetweenTokens() {
+        String json = " \t{ \"1\" : 2 ,\n \"2\":3\r\n} ";
+
+        assertThat(JsonScoreUtils.jsonToArray(json)).containsExactly(2, 3);
+        assertThat(JsonScoreUtils.calculateTotalScore(json)).isEqualTo(5);
+    }
+
+    @Test
+    void quotedValues() {
+        assertThat(JsonScoreUtils.jsonToArray("{\"1\":\"2\",\"2\":\"-1\"}")).containsExactly(2, -1);
+        assertThat(JsonScoreUtils.jsonToMap("{\"1\":\"4\"}")).containsEntry(1, 4);
+    }
+
+    @Test
+    void fractionsAreTruncated() {
+        assertThat(JsonScoreUtils.jsonToArray("{\"1\":2.7,\"2\":-1.5,\"3\":\"0.9\"}")).containsExactly(2, -1, 0);
+        assertThat(JsonScoreUtils.calculateTotalScore("{\"1\":2.7,\"2\":1.9}")).isEqualTo(3);
+    }
+
+    @Test
+    void nullScoreCountsAsZero() {
+        String json = "{\"1\":null,\"2\":3}";
+
+        assertThat(JsonScoreUtils.jsonToArray(json)).containsExactly(0, 3);
+        assertThat(JsonScoreUtils.calculateTotalScore(json)).isEqualTo(3);
+        Map<Integer, Integer> map = JsonScoreUtils.jsonToMap(json);
+        assertThat(map).containsKey(1).containsEntry(2, 3);
+        assertThat(map.get(1)).isNull();
+    }
+
+    @Test
+    void negativeNumbers() {
+        assertThat(JsonScoreUtils.jsonToArray("{\"1\":-2,\"2\":5}")).containsExactly(-2, 5);
+        assertThat(JsonScoreUtils.calculateTotalScore("{\"1\":-2,\"2\":5}")).isEqualTo(3);
+        // Номера заданий меньше 1 в массив не попадают
+        assertThat(JsonScoreUtils.jsonToArray("{\"-1\":4,\"0\":4,\"2\":1}")).containsExactly(0, 1);
+        assertThat(JsonScoreUtils.jsonToMap("{\"-1\":4}")).containsEntry(-1, 4);
+    }
+
+    @Test
+    void missingTasksAreZero() {
+        assertThat(JsonScoreUtils.jsonToArray("{\"3\":1,\"1\":2}")).containsExactly(2, 0, 1);
+    }
+
+    @Test
+    void intRange() {
+        assertThat(JsonScoreUtils.jsonToArray("{\"1\":2147483647,\"2\":-2147483647}"))
+                .containsExactly(Integer.MAX_VALUE, -Integer.MAX_VALUE);
+        assertThatThrownBy(() -> JsonScoreUtils.jsonToArray("{\"1\":2147483648}"))
+                .hasMessageStartingWith("Ошибка парсинга JSON баллов");
+        assertThatThrownBy(() -> JsonScoreUtils.jsonToArray("{\"2147483648\":1}"))
+                .hasMessageStartingWith("Ошибка парсинга JSON баллов");
+        assertThatThrownBy(() -> JsonScoreUtils.calculateTotalScore("{\"1\":99999999999999999999}"))
+                .hasMessageStartingWith("Ошибка парсинга JSON баллов");
+    }
+
+    /**
+     * Некорректный JSON - исключение (Jackson для "null" возвращал null, лишние символы после объекта пропускал)
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"1\":}",
+            "{\"1\":2}x",
+            "{\"1\":2}{}",
+            "null",
+            "[1,2]",
+            "2",
+            "{\"1\" 2}",
+            "{\"1\":2,",
+            "{\"1\":2,}",
+            "{1:2}",
+            "{\"a\":2}",
+            "{\"1\":\"2}",
+            "{\"1\":abc}",
+            "{"
+    })
+    void malformedInputThrows(String json) {
+        assertThatThrownBy(() -> JsonScoreUtils.jsonToArray(json))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageStartingWith("Ошибка парсинга JSON баллов");
+        assertThatThrownBy(() -> JsonScoreUtils.jsonToMap(json))
+                .hasMessageStartingWith("Ошибка парсинга JSON баллов");
+        assertThatThrownBy(() -> JsonScoreUtils.calculateTotalScore(json))
+                .hasMessageStartingWith("Ошибка парсинга JSON баллов");
+    }
+
+    @Test
+    void totalOfMapSkipsNulls() {
+        Map<Integer, Integer> scores = new HashMap<>();
+        scores.put(1, 2);
+        scores.put(2, null);
+        scores.put(3, 4);
+
+        assertThat(JsonScoreUtils.calculateTotalScore(scores)).isEqualTo(6);
+        assertThat(JsonScoreUtils.calculateTotalScore((Map<Integer, Integer>) null)).isZero();
+    }
+}